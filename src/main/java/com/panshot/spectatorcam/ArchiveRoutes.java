@@ -0,0 +1,110 @@
+package com.panshot.spectatorcam;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+final class ArchiveRoutes {
+    private static final int DEFAULT_LIMIT = 500;
+    private static final int MAX_LIMIT = 5000;
+
+    private final Supplier<FrameArchive> archive;
+    private final String frameRoute;
+
+    ArchiveRoutes(Supplier<FrameArchive> archive, String frameRoute) {
+        this.archive = archive;
+        this.frameRoute = frameRoute;
+    }
+
+    void handleIndex(HttpExchange exchange) throws IOException {
+        if (!PanshotWebServer.requireGet(exchange)) {
+            return;
+        }
+
+        FrameArchive current = archive.get();
+        String query = exchange.getRequestURI().getRawQuery();
+        long from = parseLong(query, "from", Long.MIN_VALUE);
+        long to = parseLong(query, "to", Long.MAX_VALUE);
+        int limit = (int)Math.max(1L, Math.min(MAX_LIMIT, parseLong(query, "limit", DEFAULT_LIMIT)));
+        List<FrameArchive.Entry> entries = current != null ? current.entries(from, to, limit) : List.of();
+
+        StringBuilder json = new StringBuilder(64 + entries.size() * 160).append("{\"frames\":[");
+        for (int index = 0; index < entries.size(); index++) {
+            FrameArchive.Entry entry = entries.get(index);
+            FrameArchive.Pose pose = entry.pose();
+            if (index > 0) {
+                json.append(',');
+            }
+            json.append(String.format(
+                Locale.ROOT,
+                "{\"id\":%d,\"timestamp\":%d,\"x\":%.3f,\"y\":%.3f,\"z\":%.3f,\"yaw\":%.1f,\"pitch\":%.1f,\"codec\":\"%s\",\"width\":%d,\"height\":%d,\"bytes\":%d}",
+                entry.id(),
+                entry.timestamp(),
+                pose.x(),
+                pose.y(),
+                pose.z(),
+                pose.yaw(),
+                pose.pitch(),
+                entry.codec().displayName(),
+                entry.width(),
+                entry.height(),
+                entry.length()
+            ));
+        }
+        json.append("]}");
+        PanshotWebServer.sendBytes(exchange, "application/json; charset=utf-8", json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    void handleFrame(HttpExchange exchange) throws IOException {
+        if (!PanshotWebServer.requireGet(exchange)) {
+            return;
+        }
+
+        FrameArchive current = archive.get();
+        long id = parseId(exchange.getRequestURI().getPath().substring(frameRoute.length()));
+        FrameArchive.Entry entry = current != null && id >= 0L ? current.find(id) : null;
+        byte[] bytes = null;
+        if (entry != null) {
+            try {
+                bytes = current.read(entry);
+            } catch (IOException exception) {
+                // Retention may have removed the segment since the lookup.
+                bytes = null;
+            }
+        }
+        if (bytes == null) {
+            PanshotWebServer.sendNotFound(exchange);
+            return;
+        }
+
+        FrameResponses.send(exchange, entry.toFrame(bytes));
+    }
+
+    private static long parseId(String text) {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException exception) {
+            return -1L;
+        }
+    }
+
+    private static long parseLong(String query, String name, long fallback) {
+        if (query == null) {
+            return fallback;
+        }
+        for (String parameter : query.split("&")) {
+            if (parameter.startsWith(name + "=")) {
+                try {
+                    return Long.parseLong(parameter.substring(name.length() + 1));
+                } catch (NumberFormatException exception) {
+                    return fallback;
+                }
+            }
+        }
+        return fallback;
+    }
+}
@@ -0,0 +1,103 @@
+package com.panshot.spectatorcam;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+public final class ArchiveWriter {
+    private final ThreadPoolExecutor executor;
+    private final ArrayDeque<Append> queued = new ArrayDeque<>();
+    private final int maxPending;
+    private boolean draining;
+    private boolean failing;
+    private long writtenCount;
+    private long droppedCount;
+    private long failedCount;
+
+    public ArchiveWriter(String threadName, int maxPending) {
+        if (maxPending < 1) {
+            throw new IllegalArgumentException("Archive writer needs at least one slot");
+        }
+        this.maxPending = maxPending;
+        this.executor = new ThreadPoolExecutor(
+            1,
+            1,
+            30L,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public synchronized void submit(FrameArchive archive, EncodedFrame frame, FrameArchive.Pose pose, Consumer<String> notifier) {
+        // Appends are queued in publish order on one thread, so archive timestamps stay sorted.
+        if (queued.size() >= maxPending) {
+            queued.removeFirst();
+            droppedCount++;
+        }
+        queued.addLast(new Append(archive, frame, pose, notifier));
+        if (!draining) {
+            draining = true;
+            executor.execute(this::drain);
+        }
+    }
+
+    public void close(FrameArchive archive) {
+        // Queued behind any appends still waiting, so the archive closes only after they are written.
+        executor.execute(archive::close);
+    }
+
+    public synchronized String describe() {
+        return String.format(
+            Locale.ROOT,
+            "%d archived, %d dropped, %d failed, %d pending",
+            writtenCount,
+            droppedCount,
+            failedCount,
+            queued.size()
+        );
+    }
+
+    private void drain() {
+        while (true) {
+            Append append;
+            synchronized (this) {
+                append = queued.pollFirst();
+                if (append == null) {
+                    draining = false;
+                    return;
+                }
+            }
+            try {
+                append.archive.append(append.frame, append.pose);
+                synchronized (this) {
+                    writtenCount++;
+                    failing = false;
+                }
+            } catch (IOException | RuntimeException exception) {
+                boolean first;
+                synchronized (this) {
+                    failedCount++;
+                    first = !failing;
+                    failing = true;
+                }
+                // A full disk fails every append; only the first failure of a streak is reported.
+                if (first) {
+                    append.notifier.accept("Archive write failed: " + exception.getMessage());
+                }
+            }
+        }
+    }
+
+    private record Append(FrameArchive archive, EncodedFrame frame, FrameArchive.Pose pose, Consumer<String> notifier) {
+    }
+}
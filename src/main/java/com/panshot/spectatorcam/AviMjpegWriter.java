@@ -0,0 +1,205 @@
+package com.panshot.spectatorcam;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public final class AviMjpegWriter implements AutoCloseable {
+    private static final int AVIF_HASINDEX = 0x10;
+    private static final int AVIIF_KEYFRAME = 0x10;
+    private static final int HEADER_BYTES = 224;
+    private static final int MOVI_FOURCC_POSITION = 220;
+    private static final int RIFF_SIZE_POSITION = 4;
+    private static final int AVIH_TOTAL_FRAMES_POSITION = 48;
+    private static final int AVIH_BUFFER_SIZE_POSITION = 60;
+    private static final int STRH_LENGTH_POSITION = 140;
+    private static final int STRH_BUFFER_SIZE_POSITION = 144;
+    private static final int MOVI_SIZE_POSITION = 216;
+    private static final int INDEX_ENTRY_BYTES = 16;
+
+    private final Path path;
+    private final Path indexPath;
+    private final int width;
+    private final int height;
+    private final FileChannel channel;
+    private final OutputStream index;
+    private final ByteBuffer chunkHeader = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer indexEntry = ByteBuffer.allocate(INDEX_ENTRY_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private long position = HEADER_BYTES;
+    private int frameCount;
+    private int largestFrame;
+    private boolean finished;
+
+    public AviMjpegWriter(Path path, int width, int height, int framesPerSecond) throws IOException {
+        if (width <= 0 || height <= 0 || framesPerSecond <= 0) {
+            throw new IllegalArgumentException("Video size and frame rate must be positive");
+        }
+        this.path = path;
+        this.indexPath = path.resolveSibling(path.getFileName() + ".idx1");
+        this.width = width;
+        this.height = height;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        // idx1 entries are spooled to a side file so memory stays flat no matter how long the recording runs.
+        this.index = new BufferedOutputStream(Files.newOutputStream(indexPath));
+        writeFully(header(framesPerSecond), 0L);
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public int frameCount() {
+        return frameCount;
+    }
+
+    public long byteSize() {
+        return position + (long)frameCount * INDEX_ENTRY_BYTES;
+    }
+
+    public void writeFrame(byte[] jpeg) throws IOException {
+        if (finished) {
+            throw new IllegalStateException("Video is already finished");
+        }
+        chunkHeader.clear();
+        chunkHeader.put(fourcc("00dc")).putInt(jpeg.length).flip();
+        writeFully(chunkHeader, position);
+        writeFully(ByteBuffer.wrap(jpeg), position + 8L);
+        long chunkStart = position;
+        position += 8L + jpeg.length;
+        if ((jpeg.length & 1) != 0) {
+            writeFully(ByteBuffer.wrap(new byte[1]), position);
+            position++;
+        }
+
+        indexEntry.clear();
+        indexEntry.put(fourcc("00dc"))
+            .putInt(AVIIF_KEYFRAME)
+            .putInt((int)(chunkStart - MOVI_FOURCC_POSITION))
+            .putInt(jpeg.length);
+        index.write(indexEntry.array());
+        frameCount++;
+        largestFrame = Math.max(largestFrame, jpeg.length);
+    }
+
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        try {
+            index.close();
+            long moviEnd = position;
+            chunkHeader.clear();
+            chunkHeader.put(fourcc("idx1")).putInt(frameCount * INDEX_ENTRY_BYTES).flip();
+            writeFully(chunkHeader, position);
+            position += 8L;
+            try (FileChannel spooled = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+                long copied = 0L;
+                long length = spooled.size();
+                while (copied < length) {
+                    copied += spooled.transferTo(copied, length - copied, channel.position(position + copied));
+                }
+                position += length;
+            }
+
+            patch(RIFF_SIZE_POSITION, (int)(position - 8L));
+            patch(AVIH_TOTAL_FRAMES_POSITION, frameCount);
+            patch(AVIH_BUFFER_SIZE_POSITION, largestFrame + 8);
+            patch(STRH_LENGTH_POSITION, frameCount);
+            patch(STRH_BUFFER_SIZE_POSITION, largestFrame + 8);
+            patch(MOVI_SIZE_POSITION, (int)(moviEnd - MOVI_FOURCC_POSITION));
+            channel.force(false);
+        } finally {
+            channel.close();
+            Files.deleteIfExists(indexPath);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+    }
+
+    private ByteBuffer header(int framesPerSecond) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        // Sizes and counts left at zero here are patched in finish(), once the recording length is known.
+        header.put(fourcc("RIFF")).putInt(0).put(fourcc("AVI "));
+        header.put(fourcc("LIST")).putInt(192).put(fourcc("hdrl"));
+        header.put(fourcc("avih")).putInt(56)
+            .putInt(1_000_000 / framesPerSecond)
+            .putInt(0)
+            .putInt(0)
+            .putInt(AVIF_HASINDEX)
+            .putInt(0)
+            .putInt(0)
+            .putInt(1)
+            .putInt(0)
+            .putInt(width)
+            .putInt(height)
+            .putInt(0).putInt(0).putInt(0).putInt(0);
+        header.put(fourcc("LIST")).putInt(116).put(fourcc("strl"));
+        header.put(fourcc("strh")).putInt(56)
+            .put(fourcc("vids"))
+            .put(fourcc("MJPG"))
+            .putInt(0)
+            .putShort((short)0)
+            .putShort((short)0)
+            .putInt(0)
+            .putInt(1)
+            .putInt(framesPerSecond)
+            .putInt(0)
+            .putInt(0)
+            .putInt(0)
+            .putInt(-1)
+            .putInt(0)
+            .putShort((short)0)
+            .putShort((short)0)
+            .putShort((short)width)
+            .putShort((short)height);
+        header.put(fourcc("strf")).putInt(40)
+            .putInt(40)
+            .putInt(width)
+            .putInt(height)
+            .putShort((short)1)
+            .putShort((short)24)
+            .put(fourcc("MJPG"))
+            .putInt(width * height * 3)
+            .putInt(0)
+            .putInt(0)
+            .putInt(0)
+            .putInt(0);
+        header.put(fourcc("LIST")).putInt(4).put(fourcc("movi"));
+        return header.flip();
+    }
+
+    private void patch(int offset, int value) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(value).flip();
+        writeFully(buffer, offset);
+    }
+
+    private void writeFully(ByteBuffer buffer, long offset) throws IOException {
+        long target = offset;
+        while (buffer.hasRemaining()) {
+            target += channel.write(buffer, target);
+        }
+    }
+
+    private static byte[] fourcc(String code) {
+        return code.getBytes(StandardCharsets.US_ASCII);
+    }
+}
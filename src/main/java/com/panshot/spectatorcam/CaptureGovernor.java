@@ -0,0 +1,212 @@
+package com.panshot.spectatorcam;
+
+import java.util.Locale;
+
+public final class CaptureGovernor {
+    public static final double DEFAULT_BUDGET_MILLIS = 8.0;
+    public static final int DEFAULT_MAX_INTERVAL_FACTOR = 4;
+    public static final int DEFAULT_MAX_RESOLUTION_DIVISOR = 2;
+    private static final double SMOOTHING = 0.25;
+    private static final int SETTLE_SAMPLES = 3;
+    private static final double INTERVAL_STEP = 1.5;
+    // Raising only when the predicted cost stays well under budget keeps the governor from oscillating.
+    private static final double RAISE_HEADROOM = 0.6;
+    // A shorter interval must look affordable on this many decisions in a row before it is taken.
+    private static final int SHORTEN_DECISIONS = 3;
+    private static final double TICK_MILLIS = 50.0;
+
+    private final int maxStepsPerTick;
+    private boolean enabled;
+    private double budgetMillis = DEFAULT_BUDGET_MILLIS;
+    private int maxIntervalFactor = DEFAULT_MAX_INTERVAL_FACTOR;
+    private int maxScaleShift = Integer.numberOfTrailingZeros(DEFAULT_MAX_RESOLUTION_DIVISOR);
+    private double intervalFactor = 1.0;
+    private int scaleShift;
+    private int stepsPerTick = 1;
+    private double renderMillis;
+    private double readbackMillis;
+    private double pendingReadbackMillis;
+    private double encodeMillis;
+    private double amortizedMillis;
+    private long configuredTicks = 1L;
+    private int samplesSinceChange;
+    private int shortenStreak;
+    private String lastDecision = "none yet";
+
+    public CaptureGovernor(int maxStepsPerTick) {
+        this.maxStepsPerTick = maxStepsPerTick;
+    }
+
+    public synchronized void configure(boolean enabled, double budgetMillis, int maxIntervalFactor, int maxResolutionDivisor) {
+        if (budgetMillis <= 0.0 || maxIntervalFactor < 1 || Integer.bitCount(maxResolutionDivisor) != 1) {
+            throw new IllegalArgumentException("Governor budget and limits must be positive, divisor a power of two");
+        }
+        this.enabled = enabled;
+        this.budgetMillis = budgetMillis;
+        this.maxIntervalFactor = maxIntervalFactor;
+        this.maxScaleShift = Integer.numberOfTrailingZeros(maxResolutionDivisor);
+        intervalFactor = Math.min(intervalFactor, maxIntervalFactor);
+        scaleShift = Math.min(scaleShift, maxScaleShift);
+        samplesSinceChange = 0;
+    }
+
+    public synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized double budgetMillis() {
+        return budgetMillis;
+    }
+
+    public synchronized int maxIntervalFactor() {
+        return maxIntervalFactor;
+    }
+
+    public synchronized int maxResolutionDivisor() {
+        return 1 << maxScaleShift;
+    }
+
+    public synchronized void reset() {
+        intervalFactor = 1.0;
+        scaleShift = 0;
+        stepsPerTick = 1;
+        renderMillis = 0.0;
+        readbackMillis = 0.0;
+        pendingReadbackMillis = 0.0;
+        encodeMillis = 0.0;
+        amortizedMillis = 0.0;
+        samplesSinceChange = 0;
+        shortenStreak = 0;
+        lastDecision = "none yet";
+    }
+
+    public synchronized void recordReadback(long nanos) {
+        // Most ticks drain nothing; averaging those in would hide the real cost, so drains are summed per capture step.
+        pendingReadbackMillis += nanos / 1_000_000.0;
+    }
+
+    public synchronized void recordEncode(long nanos) {
+        encodeMillis = smooth(encodeMillis, nanos / 1_000_000.0);
+    }
+
+    public synchronized void recordRender(long nanos, int steps, boolean stepsAdjustable) {
+        renderMillis = smooth(renderMillis, nanos / 1_000_000.0 / Math.max(1, steps));
+        readbackMillis = smooth(readbackMillis, pendingReadbackMillis);
+        pendingReadbackMillis = 0.0;
+        if (enabled && ++samplesSinceChange >= SETTLE_SAMPLES) {
+            decide(stepsAdjustable ? stepsPerTick : steps, stepsAdjustable);
+        }
+    }
+
+    public synchronized long intervalTicks(long configuredTicks, int workers) {
+        this.configuredTicks = Math.max(1L, configuredTicks);
+        if (!enabled) {
+            return configuredTicks;
+        }
+        // Workers that cannot keep up would only drop frames, so the interval never undercuts the encode throughput.
+        long encodeFloor = (long)Math.ceil(encodeMillis / (TICK_MILLIS * Math.max(1, workers)));
+        return Math.max(governedTicks(intervalFactor), Math.min(configuredTicks * maxIntervalFactor, encodeFloor));
+    }
+
+    public synchronized int scaledSize(int size, int minimum) {
+        return enabled ? Math.max(minimum, size >> scaleShift) : size;
+    }
+
+    public synchronized int stepsPerTick() {
+        return enabled ? stepsPerTick : 1;
+    }
+
+    public synchronized String describe() {
+        if (!enabled) {
+            return String.format(
+                Locale.ROOT,
+                "off (budget %.1f ms, interval up to %dx, resolution down to 1/%d)",
+                budgetMillis,
+                maxIntervalFactor,
+                1 << maxScaleShift
+            );
+        }
+        return String.format(
+            Locale.ROOT,
+            "on, budget %.1f ms; render %.2f ms per %s, readback %.2f ms per step, encode %.1f ms, amortized %.2f ms per tick; interval x%.2f, resolution 1/%d, %d per tick; last change: %s",
+            budgetMillis,
+            renderMillis,
+            maxStepsPerTick > 1 ? "face" : "frame",
+            readbackMillis,
+            encodeMillis,
+            amortizedMillis,
+            intervalFactor,
+            1 << scaleShift,
+            stepsPerTick,
+            lastDecision
+        );
+    }
+
+    private void decide(int steps, boolean stepsAdjustable) {
+        // Faces per tick and resolution decide what a single capture tick costs, so only they answer a tick over budget.
+        double tickCost = renderMillis * steps + readbackMillis;
+        if (tickCost > budgetMillis) {
+            shortenStreak = 0;
+            if (stepsAdjustable && stepsPerTick > 1) {
+                stepsPerTick--;
+                changed("fewer faces per tick");
+                return;
+            } else if (scaleShift < maxScaleShift) {
+                scaleShift++;
+                changed("lowered resolution");
+                return;
+            }
+        }
+
+        // The interval cannot make a capture tick cheaper, only spread captures apart, so it is judged on the
+        // whole capture's cost averaged over the ticks between captures.
+        int captureTicks = (maxStepsPerTick + steps - 1) / steps;
+        double captureCost = renderMillis * maxStepsPerTick + readbackMillis * captureTicks;
+        amortizedMillis = captureCost / governedTicks(intervalFactor);
+        if (amortizedMillis > budgetMillis) {
+            shortenStreak = 0;
+            if (intervalFactor < maxIntervalFactor) {
+                intervalFactor = Math.min(maxIntervalFactor, intervalFactor * INTERVAL_STEP);
+                changed("lengthened interval");
+            }
+            return;
+        }
+        if (tickCost > budgetMillis) {
+            return;
+        }
+
+        double headroom = budgetMillis * RAISE_HEADROOM;
+        if (intervalFactor > 1.0) {
+            double shorter = Math.max(1.0, intervalFactor / INTERVAL_STEP);
+            if (captureCost / governedTicks(shorter) >= headroom) {
+                shortenStreak = 0;
+            } else if (++shortenStreak >= SHORTEN_DECISIONS) {
+                intervalFactor = shorter;
+                changed("shortened interval");
+            }
+            return;
+        }
+        if (scaleShift > 0 && tickCost * 4.0 < headroom) {
+            // Doubling the resolution roughly quadruples the pixels rendered and read back.
+            scaleShift--;
+            changed("raised resolution");
+        } else if (stepsAdjustable && stepsPerTick < maxStepsPerTick && renderMillis * (stepsPerTick + 1) + readbackMillis < headroom) {
+            stepsPerTick++;
+            changed("more faces per tick");
+        }
+    }
+
+    private long governedTicks(double factor) {
+        return Math.max(configuredTicks, Math.min(configuredTicks * maxIntervalFactor, Math.round(configuredTicks * factor)));
+    }
+
+    private void changed(String decision) {
+        lastDecision = decision;
+        samplesSinceChange = 0;
+        shortenStreak = 0;
+    }
+
+    private static double smooth(double average, double sample) {
+        return average == 0.0 ? sample : average + (sample - average) * SMOOTHING;
+    }
+}
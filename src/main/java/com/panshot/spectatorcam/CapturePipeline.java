@@ -0,0 +1,232 @@
+package com.panshot.spectatorcam;
+
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+public final class CapturePipeline<T> {
+    private final Consumer<T> discarder;
+    private final ThreadPoolExecutor executor;
+    private final ArrayDeque<Pending<T>> queued = new ArrayDeque<>();
+    private final Object publishLock = new Object();
+    private int maxInFlight;
+    private int workerCount;
+    private BackpressurePolicy policy;
+    private int inFlight;
+    private int reserved;
+    private long reservationEpoch;
+    private long nextSequence;
+    private long publishedSequence = -1L;
+    private long submittedCount;
+    private long completedCount;
+    private long droppedCount;
+    private long stalePublishCount;
+
+    public CapturePipeline(String threadName, int maxInFlight, int workerCount, BackpressurePolicy policy, Consumer<T> discarder) {
+        this.discarder = discarder;
+        this.executor = new ThreadPoolExecutor(
+            1,
+            1,
+            30L,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+        this.executor.allowCoreThreadTimeOut(true);
+        configure(maxInFlight, workerCount, policy);
+    }
+
+    public synchronized void configure(int maxInFlight, int workerCount, BackpressurePolicy policy) {
+        if (maxInFlight < 1 || workerCount < 1) {
+            throw new IllegalArgumentException("Pipeline slots and workers must be positive");
+        }
+        this.maxInFlight = maxInFlight;
+        this.workerCount = workerCount;
+        this.policy = policy;
+        int threads = Math.min(workerCount, maxInFlight);
+        if (threads > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(threads);
+            executor.setCorePoolSize(threads);
+        } else {
+            executor.setCorePoolSize(threads);
+            executor.setMaximumPoolSize(threads);
+        }
+    }
+
+    public synchronized Reservation tryReserve() {
+        // Under BLOCK a capture claims its slot before rendering, so captures already in readback count against the limit.
+        if (policy == BackpressurePolicy.BLOCK && inFlight + reserved >= maxInFlight) {
+            return null;
+        }
+        reserved++;
+        return new Reservation(reservationEpoch);
+    }
+
+    public synchronized void cancelReservation(Reservation reservation) {
+        settle(reservation);
+    }
+
+    public Submission submit(Reservation reservation, T item, Job<T> job) {
+        T discarded = null;
+        Submission result;
+        synchronized (this) {
+            settle(reservation);
+            long sequence = nextSequence++;
+            submittedCount++;
+            if (inFlight >= maxInFlight && policy != BackpressurePolicy.BLOCK) {
+                if (policy == BackpressurePolicy.DROP_OLDEST && !queued.isEmpty()) {
+                    discarded = queued.removeFirst().item;
+                    inFlight--;
+                    droppedCount++;
+                } else {
+                    droppedCount++;
+                    discard(item);
+                    return Submission.DROPPED;
+                }
+            }
+            // BLOCK never drops here: the slot was already claimed through tryReserve() when the capture started.
+            queued.addLast(new Pending<>(item, job, sequence));
+            inFlight++;
+            result = discarded != null ? Submission.REPLACED_OLDEST : Submission.QUEUED;
+        }
+        if (discarded != null) {
+            discard(discarded);
+        }
+        executor.execute(this::runNext);
+        return result;
+    }
+
+    public synchronized boolean hasCapacity() {
+        return policy != BackpressurePolicy.BLOCK || inFlight + reserved < maxInFlight;
+    }
+
+    public boolean publish(long sequence, Runnable action) {
+        synchronized (publishLock) {
+            if (sequence <= publishedSequence) {
+                synchronized (this) {
+                    stalePublishCount++;
+                }
+                return false;
+            }
+            publishedSequence = sequence;
+            action.run();
+            return true;
+        }
+    }
+
+    public void clear() {
+        ArrayDeque<Pending<T>> cleared;
+        synchronized (this) {
+            cleared = new ArrayDeque<>(queued);
+            inFlight -= queued.size();
+            queued.clear();
+            // Reservations taken before a clear belong to abandoned captures; late settles of them are ignored.
+            reserved = 0;
+            reservationEpoch++;
+        }
+        for (Pending<T> pending : cleared) {
+            discard(pending.item);
+        }
+    }
+
+    public synchronized int slots() {
+        return maxInFlight;
+    }
+
+    public synchronized int workers() {
+        return workerCount;
+    }
+
+    public synchronized BackpressurePolicy policy() {
+        return policy;
+    }
+
+    public synchronized String describe() {
+        return String.format(
+            Locale.ROOT,
+            "slots %d, workers %d, policy %s, in flight %d, reserved %d, submitted %d, completed %d, dropped %d, stale %d",
+            maxInFlight,
+            workerCount,
+            policy.displayName(),
+            inFlight,
+            reserved,
+            submittedCount,
+            completedCount,
+            droppedCount,
+            stalePublishCount
+        );
+    }
+
+    private void runNext() {
+        Pending<T> pending;
+        synchronized (this) {
+            pending = queued.pollFirst();
+        }
+        if (pending == null) {
+            return;
+        }
+
+        try {
+            pending.job.process(pending.item, pending.sequence);
+        } finally {
+            synchronized (this) {
+                inFlight--;
+                completedCount++;
+            }
+        }
+    }
+
+    private void settle(Reservation reservation) {
+        if (reservation.settled || reservation.epoch != reservationEpoch) {
+            reservation.settled = true;
+            return;
+        }
+        reservation.settled = true;
+        reserved--;
+    }
+
+    private void discard(T item) {
+        if (discarder != null) {
+            discarder.accept(item);
+        }
+    }
+
+    public enum BackpressurePolicy {
+        DROP_OLDEST,
+        DROP_NEWEST,
+        BLOCK;
+
+        public String displayName() {
+            return name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+    }
+
+    public enum Submission {
+        QUEUED,
+        REPLACED_OLDEST,
+        DROPPED
+    }
+
+    public static final class Reservation {
+        private final long epoch;
+        private boolean settled;
+
+        private Reservation(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+
+    public interface Job<T> {
+        void process(T item, long sequence);
+    }
+
+    private record Pending<T>(T item, Job<T> job, long sequence) {
+    }
+}
@@ -0,0 +1,117 @@
+package com.panshot.spectatorcam;
+
+import net.minecraft.client.MinecraftClient;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+public final class CaptureScheduler {
+    public static final double DEFAULT_BUDGET_MILLIS = 16.0;
+    private static final double SMOOTHING = 0.25;
+
+    private final List<Entry> entries = new ArrayList<>();
+    private final List<Entry> due = new ArrayList<>();
+    private double budgetMillis = DEFAULT_BUDGET_MILLIS;
+    private long tickCounter;
+    private long servedSteps;
+    private long deferredSteps;
+    private double tickMillis;
+
+    public void register(Job job) {
+        for (Entry entry : entries) {
+            if (entry.job == job) {
+                return;
+            }
+        }
+        entries.add(new Entry(job));
+    }
+
+    public void unregister(Job job) {
+        entries.removeIf(entry -> entry.job == job);
+    }
+
+    public double budgetMillis() {
+        return budgetMillis;
+    }
+
+    public void setBudgetMillis(double budgetMillis) {
+        if (budgetMillis <= 0.0) {
+            throw new IllegalArgumentException("Scheduler budget must be positive");
+        }
+        this.budgetMillis = budgetMillis;
+    }
+
+    public void tick(MinecraftClient client) {
+        tickCounter++;
+        long start = System.nanoTime();
+        due.clear();
+        // Readbacks are drained for every job each tick; their cost counts against the budget like rendering does.
+        for (Entry entry : entries) {
+            if (entry.job.prepare(client)) {
+                entry.lateness = -entry.job.ticksUntilDue();
+                due.add(entry);
+            }
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+
+        // Most overdue first; a job deferred by the budget keeps its deadline and so moves ahead next tick.
+        due.sort(Comparator.comparingLong((Entry entry) -> -entry.lateness).thenComparingLong(entry -> entry.lastServedTick));
+        long budgetNanos = Math.round(budgetMillis * 1_000_000.0);
+        int served = 0;
+        for (Entry entry : due) {
+            if (served > 0 && System.nanoTime() - start >= budgetNanos) {
+                deferredSteps++;
+                continue;
+            }
+            entry.job.capture(client);
+            entry.lastServedTick = tickCounter;
+            served++;
+        }
+        servedSteps += served;
+        double elapsed = (System.nanoTime() - start) / 1_000_000.0;
+        tickMillis = tickMillis == 0.0 ? elapsed : tickMillis + (elapsed - tickMillis) * SMOOTHING;
+    }
+
+    public String describe() {
+        int active = 0;
+        for (Entry entry : entries) {
+            if (entry.job.isScheduled()) {
+                active++;
+            }
+        }
+        return String.format(
+            Locale.ROOT,
+            "%d of %d cameras active, budget %.1f ms per tick, busy ticks average %.2f ms; %d steps run, %d deferred",
+            active,
+            entries.size(),
+            budgetMillis,
+            tickMillis,
+            servedSteps,
+            deferredSteps
+        );
+    }
+
+    public interface Job {
+        boolean isScheduled();
+
+        boolean prepare(MinecraftClient client);
+
+        long ticksUntilDue();
+
+        void capture(MinecraftClient client);
+    }
+
+    private static final class Entry {
+        private final Job job;
+        private long lateness;
+        private long lastServedTick;
+
+        private Entry(Job job) {
+            this.job = job;
+        }
+    }
+}
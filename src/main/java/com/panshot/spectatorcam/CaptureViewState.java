@@ -0,0 +1,189 @@
+package com.panshot.spectatorcam;
+
+import com.panshot.spectatorcam.mixin.BuiltChunkStorageAccessor;
+import com.panshot.spectatorcam.mixin.WorldRendererAccessor;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import net.minecraft.client.render.BuiltChunkStorage;
+import net.minecraft.client.render.ChunkRenderingDataPreparer;
+import net.minecraft.client.render.WorldRenderer;
+import net.minecraft.client.render.chunk.ChunkBuilder;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.Locale;
+
+public final class CaptureViewState {
+    // Sections this close to the origin decide most of what the camera sees; their rebuilds invalidate the graph.
+    private static final int NEARBY_SECTION_RADIUS = 8;
+    // Changes further out are only picked up by this slow refresh, which keeps distant terrain from going stale.
+    private static final long REFRESH_INTERVAL_NANOS = 30_000_000_000L;
+    // Render thread only: the view whose preparer is swapped in right now, if any.
+    private static CaptureViewState active;
+
+    private final ChunkRenderingDataPreparer preparer = new ChunkRenderingDataPreparer();
+    private final View capture = new View(new ObjectArrayList<>(10000));
+    private final View player = new View(null);
+    private BuiltChunkStorage storage;
+    private Vec3d origin;
+    private long lastRefreshNanos;
+    private long nearbyFingerprint;
+    private long graphRebuilds;
+    private long graphReuses;
+    private long forwardedUpdates;
+    private ChunkRenderingDataPreparer playerPreparer;
+
+    public void enter(WorldRenderer worldRenderer, Vec3d cameraOrigin) {
+        if (playerPreparer != null) {
+            return;
+        }
+        WorldRendererAccessor accessor = (WorldRendererAccessor)worldRenderer;
+        BuiltChunkStorage currentStorage = accessor.spectatorcam$getChunks();
+        long now = System.nanoTime();
+        if (currentStorage != storage) {
+            // A reload replaced the section storage; the graph has to be rebuilt against the new one.
+            preparer.setStorage(currentStorage);
+            storage = currentStorage;
+            origin = null;
+        }
+        // The graph is built for all directions at once, so every face and tile of every cycle shares it until
+        // the origin moves or a section around it is rebuilt; only the per-view frustum filter runs each time.
+        long fingerprint = nearbyFingerprint(currentStorage, cameraOrigin);
+        if (!cameraOrigin.equals(origin) || fingerprint != nearbyFingerprint || now - lastRefreshNanos > REFRESH_INTERVAL_NANOS) {
+            preparer.scheduleTerrainUpdate();
+            origin = cameraOrigin;
+            nearbyFingerprint = fingerprint;
+            lastRefreshNanos = now;
+            graphRebuilds++;
+        } else {
+            graphReuses++;
+        }
+
+        playerPreparer = accessor.spectatorcam$getChunkRenderingDataPreparer();
+        player.save(accessor);
+        accessor.spectatorcam$setChunkRenderingDataPreparer(preparer);
+        capture.restore(accessor);
+        active = this;
+    }
+
+    public void exit(WorldRenderer worldRenderer) {
+        if (playerPreparer == null) {
+            return;
+        }
+        WorldRendererAccessor accessor = (WorldRendererAccessor)worldRenderer;
+        capture.save(accessor);
+        accessor.spectatorcam$setChunkRenderingDataPreparer(playerPreparer);
+        player.restore(accessor);
+        playerPreparer = null;
+        active = null;
+    }
+
+    public static void onBuiltChunk(ChunkBuilder.BuiltChunk chunk) {
+        // Sections uploaded during a capture render notify the swapped-in preparer only; without this copy the
+        // player's graph never propagates through them and they stay missing until the next full rebuild.
+        CaptureViewState view = active;
+        if (view != null && view.playerPreparer != null) {
+            view.playerPreparer.schedulePropagationFrom(chunk);
+            view.forwardedUpdates++;
+        }
+    }
+
+    public void invalidateFrustum(WorldRenderer worldRenderer) {
+        // Tiles share a camera rotation, so force the renderer to refilter sections against the next tile's frustum.
+        ((WorldRendererAccessor)worldRenderer).spectatorcam$setLastCameraPitch(Double.NaN);
+    }
+
+    public String describe() {
+        long total = graphRebuilds + graphReuses;
+        if (total == 0L) {
+            return "no render passes yet";
+        }
+        return String.format(
+            Locale.ROOT,
+            "visibility graph reused for %d of %d render passes (%.0f%%), rebuilt %d times; %d section updates forwarded to the player view",
+            graphReuses,
+            total,
+            graphReuses * 100.0 / total,
+            graphRebuilds,
+            forwardedUpdates
+        );
+    }
+
+    public void reset() {
+        preparer.setStorage(null);
+        capture.builtChunks.clear();
+        storage = null;
+        origin = null;
+        graphRebuilds = 0L;
+        graphReuses = 0L;
+        forwardedUpdates = 0L;
+    }
+
+    private static long nearbyFingerprint(BuiltChunkStorage storage, Vec3d cameraOrigin) {
+        if (storage == null || storage.chunks == null) {
+            return 0L;
+        }
+        BuiltChunkStorageAccessor accessor = (BuiltChunkStorageAccessor)storage;
+        int bottomY = accessor.spectatorcam$getWorld().getBottomY();
+        int sizeY = accessor.spectatorcam$getSizeY();
+        int sectionX = (int)Math.floor(cameraOrigin.x) >> 4;
+        int sectionZ = (int)Math.floor(cameraOrigin.z) >> 4;
+        long fingerprint = 0L;
+        // Only the columns around the origin are looked up by position; the storage holds every loaded section.
+        for (int x = sectionX - NEARBY_SECTION_RADIUS; x <= sectionX + NEARBY_SECTION_RADIUS; x++) {
+            for (int z = sectionZ - NEARBY_SECTION_RADIUS; z <= sectionZ + NEARBY_SECTION_RADIUS; z++) {
+                for (int y = 0; y < sizeY; y++) {
+                    ChunkBuilder.BuiltChunk chunk = accessor.spectatorcam$getRenderedChunk(new BlockPos(x << 4, bottomY + (y << 4), z << 4));
+                    if (chunk == null) {
+                        continue;
+                    }
+                    BlockPos sectionOrigin = chunk.getOrigin();
+                    // The storage wraps around the player, so away from them a slot can hold some other column.
+                    if (sectionOrigin.getX() >> 4 != x || sectionOrigin.getZ() >> 4 != z) {
+                        continue;
+                    }
+                    // A finished rebuild swaps in a new data object, so its identity changes exactly when the section does.
+                    fingerprint += mix(sectionOrigin.asLong() ^ (long)System.identityHashCode(chunk.getData()) << 32);
+                }
+            }
+        }
+        return fingerprint;
+    }
+
+    private static long mix(long value) {
+        value = (value ^ value >>> 30) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ value >>> 27) * 0x94D049BB133111EBL;
+        return value ^ value >>> 31;
+    }
+
+    private static final class View {
+        private ObjectArrayList<ChunkBuilder.BuiltChunk> builtChunks;
+        private double cameraX = Double.MIN_VALUE;
+        private double cameraY = Double.MIN_VALUE;
+        private double cameraZ = Double.MIN_VALUE;
+        private double cameraPitch = Double.MIN_VALUE;
+        private double cameraYaw = Double.MIN_VALUE;
+
+        private View(ObjectArrayList<ChunkBuilder.BuiltChunk> builtChunks) {
+            this.builtChunks = builtChunks;
+        }
+
+        // The last camera position and rotation travel with each view; otherwise every switch looks like a camera move.
+        private void save(WorldRendererAccessor accessor) {
+            builtChunks = accessor.spectatorcam$getBuiltChunks();
+            cameraX = accessor.spectatorcam$getLastCameraX();
+            cameraY = accessor.spectatorcam$getLastCameraY();
+            cameraZ = accessor.spectatorcam$getLastCameraZ();
+            cameraPitch = accessor.spectatorcam$getLastCameraPitch();
+            cameraYaw = accessor.spectatorcam$getLastCameraYaw();
+        }
+
+        private void restore(WorldRendererAccessor accessor) {
+            accessor.spectatorcam$setBuiltChunks(builtChunks);
+            accessor.spectatorcam$setLastCameraX(cameraX);
+            accessor.spectatorcam$setLastCameraY(cameraY);
+            accessor.spectatorcam$setLastCameraZ(cameraZ);
+            accessor.spectatorcam$setLastCameraPitch(cameraPitch);
+            accessor.spectatorcam$setLastCameraYaw(cameraYaw);
+        }
+    }
+}
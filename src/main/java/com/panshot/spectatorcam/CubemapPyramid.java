@@ -0,0 +1,55 @@
+package com.panshot.spectatorcam;
+
+import net.minecraft.client.texture.NativeImage;
+
+import java.nio.ByteBuffer;
+
+public final class CubemapPyramid {
+    public static final int MIN_LEVEL_FACE_SIZE = 128;
+    private static final int ATLAS_COLUMNS = 3;
+    private static final int ATLAS_ROWS = 2;
+
+    private CubemapPyramid() {
+    }
+
+    public static int faceSize(NativeImage atlas) {
+        return atlas.getWidth() / ATLAS_COLUMNS;
+    }
+
+    public static void halveFaces(NativeImage source, NativeImage target) {
+        int sourceFace = faceSize(source);
+        int targetFace = faceSize(target);
+        if (targetFace * 2 > sourceFace
+            || source.getHeight() != sourceFace * ATLAS_ROWS
+            || target.getWidth() != targetFace * ATLAS_COLUMNS
+            || target.getHeight() != targetFace * ATLAS_ROWS) {
+            throw new IllegalArgumentException("Target atlas must be a 3x2 atlas at most half the source face size");
+        }
+
+        ByteBuffer in = NativeImagePixels.view(source);
+        ByteBuffer out = NativeImagePixels.view(target);
+        int sourceStride = source.getWidth() * 4;
+        int targetStride = target.getWidth() * 4;
+        // Faces are reduced one at a time so no 2x2 block ever straddles two faces of the atlas.
+        for (int cellRow = 0; cellRow < ATLAS_ROWS; cellRow++) {
+            for (int cellColumn = 0; cellColumn < ATLAS_COLUMNS; cellColumn++) {
+                for (int y = 0; y < targetFace; y++) {
+                    int top = (cellRow * sourceFace + y * 2) * sourceStride + cellColumn * sourceFace * 4;
+                    int bottom = top + sourceStride;
+                    int position = (cellRow * targetFace + y) * targetStride + cellColumn * targetFace * 4;
+                    for (int x = 0; x < targetFace; x++, top += 8, bottom += 8, position += 4) {
+                        out.putInt(position, average(in.getInt(top), in.getInt(top + 4), in.getInt(bottom), in.getInt(bottom + 4)));
+                    }
+                }
+            }
+        }
+    }
+
+    private static int average(int a, int b, int c, int d) {
+        // Two channels per lane; each lane sum stays below 1024, so nothing carries into the neighbouring channel.
+        int low = ((a & 0x00FF00FF) + (b & 0x00FF00FF) + (c & 0x00FF00FF) + (d & 0x00FF00FF) + 0x00020002) >>> 2;
+        int high = (((a >>> 8) & 0x00FF00FF) + ((b >>> 8) & 0x00FF00FF) + ((c >>> 8) & 0x00FF00FF) + ((d >>> 8) & 0x00FF00FF)
+            + 0x00020002) >>> 2;
+        return (low & 0x00FF00FF) | ((high & 0x00FF00FF) << 8);
+    }
+}
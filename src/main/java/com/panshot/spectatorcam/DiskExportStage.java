@@ -0,0 +1,188 @@
+package com.panshot.spectatorcam;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+public final class DiskExportStage {
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss_SSS", Locale.ROOT)
+        .withZone(ZoneId.systemDefault());
+
+    private final ThreadPoolExecutor executor;
+    private final ArrayDeque<Export> queued = new ArrayDeque<>();
+    private final int maxPending;
+    private boolean draining;
+    private boolean timestamped;
+    private int keepFiles;
+    private long writtenCount;
+    private long droppedCount;
+    private long failedCount;
+
+    public DiskExportStage(String threadName, int maxPending) {
+        if (maxPending < 1) {
+            throw new IllegalArgumentException("Export stage needs at least one slot");
+        }
+        this.maxPending = maxPending;
+        this.executor = new ThreadPoolExecutor(
+            1,
+            1,
+            30L,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public CompletableFuture<Path> submit(Path directory, String baseName, String extension, long timestamp, byte[] bytes) {
+        Export export;
+        Export dropped = null;
+        synchronized (this) {
+            String fileName = timestamped ? baseName + "_" + FILE_TIME.format(Instant.ofEpochMilli(timestamp)) + extension : baseName + extension;
+            export = new Export(directory, fileName, baseName + "_", extension, timestamped ? keepFiles : 0, bytes, new CompletableFuture<>());
+            // A slow disk costs the oldest unwritten export, never the capture loop.
+            if (queued.size() >= maxPending) {
+                dropped = queued.removeFirst();
+                droppedCount++;
+            }
+            queued.addLast(export);
+            if (!draining) {
+                draining = true;
+                executor.execute(this::drain);
+            }
+        }
+        if (dropped != null) {
+            dropped.result.cancel(false);
+        }
+        return export.result;
+    }
+
+    public synchronized void setTimestamped(boolean timestamped) {
+        this.timestamped = timestamped;
+    }
+
+    public synchronized boolean isTimestamped() {
+        return timestamped;
+    }
+
+    public synchronized void setKeepFiles(int keepFiles) {
+        this.keepFiles = Math.max(0, keepFiles);
+    }
+
+    public synchronized String describe() {
+        return String.format(
+            Locale.ROOT,
+            "%s, %s, %d written, %d dropped, %d failed, %d pending",
+            timestamped ? "timestamped names" : "fixed names",
+            keepFiles > 0 ? "keeping " + keepFiles + " per file" : "keeping all",
+            writtenCount,
+            droppedCount,
+            failedCount,
+            queued.size()
+        );
+    }
+
+    private void drain() {
+        while (true) {
+            Export export;
+            synchronized (this) {
+                export = queued.pollFirst();
+                if (export == null) {
+                    draining = false;
+                    return;
+                }
+            }
+            try {
+                Path path = write(export);
+                synchronized (this) {
+                    writtenCount++;
+                }
+                export.result.complete(path);
+            } catch (IOException | RuntimeException exception) {
+                synchronized (this) {
+                    failedCount++;
+                }
+                export.result.completeExceptionally(exception);
+            }
+        }
+    }
+
+    private static Path write(Export export) throws IOException {
+        Files.createDirectories(export.directory);
+        Path target = export.directory.resolve(export.fileName);
+        Path temporary = export.directory.resolve("." + export.fileName + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(
+                temporary,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE
+            )) {
+                ByteBuffer bytes = ByteBuffer.wrap(export.bytes);
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                channel.force(false);
+            }
+            // Readers only ever see the previous complete file or the new complete file.
+            try {
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException exception) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        if (export.keepFiles > 0) {
+            enforceRetention(export);
+        }
+        return target;
+    }
+
+    private static void enforceRetention(Export export) throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(export.directory)) {
+            // Timestamps in the names sort chronologically, so the oldest files come first.
+            files = listing.filter(path -> {
+                    String name = path.getFileName().toString();
+                    return name.startsWith(export.retentionPrefix) && name.endsWith(export.extension);
+                })
+                .sorted()
+                .toList();
+        }
+        for (int index = 0; index < files.size() - export.keepFiles; index++) {
+            Files.deleteIfExists(files.get(index));
+        }
+    }
+
+    private record Export(
+        Path directory,
+        String fileName,
+        String retentionPrefix,
+        String extension,
+        int keepFiles,
+        byte[] bytes,
+        CompletableFuture<Path> result
+    ) {
+    }
+}
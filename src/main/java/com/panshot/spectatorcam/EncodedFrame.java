@@ -0,0 +1,4 @@
+package com.panshot.spectatorcam;
+
+public record EncodedFrame(byte[] bytes, FrameCodec codec, int width, int height, long timestamp, long version) {
+}
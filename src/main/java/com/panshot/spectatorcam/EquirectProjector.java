@@ -0,0 +1,198 @@
+package com.panshot.spectatorcam;
+
+import net.minecraft.client.texture.NativeImage;
+import org.lwjgl.system.MemoryUtil;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+public final class EquirectProjector {
+    private static final int MAX_OUTPUT_WIDTH = 8192;
+    private static final int ROWS_PER_TASK = 16;
+    private static final int[] COLUMN_MIRROR_FACES = {0, 3, 2, 1, 4, 5};
+    private static final int[] ROW_MIRROR_FACES = {0, 1, 2, 3, 5, 4};
+    private static final ForkJoinPool POOL = new ForkJoinPool(
+        Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+        pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("panshot-equirect-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        },
+        null,
+        false
+    );
+
+    private static volatile Lookup cachedLookup;
+
+    private EquirectProjector() {
+    }
+
+    public static int outputWidth(int faceSize) {
+        return Math.min(MAX_OUTPUT_WIDTH, faceSize * 4);
+    }
+
+    public static void project(NativeImage cubemap, int[] atlasLayout, NativeImage target) {
+        int faceSize = cubemap.getWidth() / 3;
+        int width = target.getWidth();
+        int height = target.getHeight();
+        if (cubemap.getHeight() != faceSize * 2 || width != outputWidth(faceSize) || height * 2 != width) {
+            throw new IllegalArgumentException("Equirect target must be 2:1 at the output width for the cubemap face size");
+        }
+
+        int[] cellOffsets = new int[6];
+        for (int slot = 0; slot < atlasLayout.length; slot++) {
+            cellOffsets[atlasLayout[slot]] = (slot / 3) * faceSize * faceSize * 3 + (slot % 3) * faceSize;
+        }
+        Lookup lookup = lookupFor(faceSize, width, height);
+        int halfWidth = width / 2;
+        int halfHeight = height / 2;
+        int fractionBits = lookup.fractionBits;
+        int fractionMask = (1 << fractionBits) - 1;
+        int fractionShift = 8 - fractionBits;
+        int maxCoordinate = (faceSize - 1) << fractionBits;
+        int atlasWidth = faceSize * 3;
+        long source = NativeImagePixels.address(cubemap);
+        long destination = NativeImagePixels.address(target);
+        long sourceStride = atlasWidth * 4L;
+        POOL.invoke(new Rows(0, height, row -> {
+            // The table holds the top-left quadrant; the other three are its mirror images about the equator and
+            // the back meridian, which swap top/bottom or left/right faces and flip the matching face coordinate.
+            boolean mirrorRow = row >= halfHeight;
+            int rowBase = (mirrorRow ? height - 1 - row : row) * halfWidth;
+            long out = destination + (long)row * width * 4L;
+            for (int x = 0; x < width; x++, out += 4L) {
+                boolean mirrorColumn = x >= halfWidth;
+                int index = rowBase + (mirrorColumn ? width - 1 - x : x);
+                int face = lookup.faces[index];
+                int coordinates = lookup.coordinates[index];
+                int sx = coordinates >>> 16;
+                int sy = coordinates & 0xFFFF;
+                if (mirrorColumn) {
+                    face = COLUMN_MIRROR_FACES[face];
+                    sx = maxCoordinate - sx;
+                }
+                if (mirrorRow) {
+                    face = ROW_MIRROR_FACES[face];
+                    sy = maxCoordinate - sy;
+                }
+                // Face edges are stored without a fraction, so bilinear taps never reach into the neighbouring cell.
+                int fx = (sx & fractionMask) << fractionShift;
+                int fy = (sy & fractionMask) << fractionShift;
+                long pixel = source + (cellOffsets[face] + (sy >>> fractionBits) * atlasWidth + (sx >>> fractionBits)) * 4L;
+                int topLeft = MemoryUtil.memGetInt(pixel);
+                int top = fx != 0 ? lerp(topLeft, MemoryUtil.memGetInt(pixel + 4L), fx) : topLeft;
+                if (fy != 0) {
+                    long below = pixel + sourceStride;
+                    int bottomLeft = MemoryUtil.memGetInt(below);
+                    int bottom = fx != 0 ? lerp(bottomLeft, MemoryUtil.memGetInt(below + 4L), fx) : bottomLeft;
+                    top = lerp(top, bottom, fy);
+                }
+                MemoryUtil.memPutInt(out, top);
+            }
+        }));
+    }
+
+    private static Lookup lookupFor(int faceSize, int width, int height) {
+        Lookup lookup = cachedLookup;
+        if (lookup != null && lookup.faceSize == faceSize && lookup.width == width) {
+            return lookup;
+        }
+
+        // Only the newest size is kept. One quadrant at 5 bytes per pixel is about 40 MB for an 8192x4096 output.
+        lookup = buildLookup(faceSize, width, height);
+        cachedLookup = lookup;
+        return lookup;
+    }
+
+    private static Lookup buildLookup(int faceSize, int width, int height) {
+        // Face coordinates are 16-bit fixed point: whatever bits the largest pixel index leaves free hold the fraction,
+        // from 8 bits for small faces down to 4 bits at 4096, which is still a sixteenth of a source pixel.
+        int fractionBits = Math.min(8, 16 - (32 - Integer.numberOfLeadingZeros(faceSize - 1)));
+        double scale = 1 << fractionBits;
+        int halfWidth = width / 2;
+        int halfHeight = height / 2;
+        byte[] faces = new byte[halfWidth * halfHeight];
+        int[] coordinates = new int[halfWidth * halfHeight];
+        POOL.invoke(new Rows(0, halfHeight, row -> {
+            double latitude = Math.PI * (0.5 - (row + 0.5) / height);
+            double cosLatitude = Math.cos(latitude);
+            double dy = Math.sin(latitude);
+            for (int x = 0, index = row * halfWidth; x < halfWidth; x++, index++) {
+                double longitude = Math.PI * (2.0 * (x + 0.5) / width - 1.0);
+                double dx = cosLatitude * Math.sin(longitude);
+                double dz = cosLatitude * Math.cos(longitude);
+                double ax = Math.abs(dx);
+                double ay = Math.abs(dy);
+                double az = Math.abs(dz);
+                // Same face selection and orientation as the viewer shader: x right, y up, z forward.
+                int face;
+                double u;
+                double v;
+                if (az >= ax && az >= ay) {
+                    face = dz > 0.0 ? 0 : 2;
+                    u = (dz > 0.0 ? dx : -dx) / az;
+                    v = -dy / az;
+                } else if (ax >= ay) {
+                    face = dx > 0.0 ? 1 : 3;
+                    u = (dx > 0.0 ? -dz : dz) / ax;
+                    v = -dy / ax;
+                } else {
+                    face = dy > 0.0 ? 4 : 5;
+                    u = dx / ay;
+                    v = (dy > 0.0 ? dz : -dz) / ay;
+                }
+
+                double sx = clamp((u * 0.5 + 0.5) * faceSize - 0.5, faceSize - 1);
+                double sy = clamp((v * 0.5 + 0.5) * faceSize - 0.5, faceSize - 1);
+                faces[index] = (byte)face;
+                coordinates[index] = (int)(sx * scale) << 16 | (int)(sy * scale);
+            }
+        }));
+        return new Lookup(faceSize, width, fractionBits, faces, coordinates);
+    }
+
+    private static double clamp(double value, double max) {
+        return Math.max(0.0, Math.min(max, value));
+    }
+
+    private static int lerp(int a, int b, int weight) {
+        // Two channels per lane; each weighted lane sum stays below 65536, so channels never carry into each other.
+        int inverse = 256 - weight;
+        int low = ((a & 0x00FF00FF) * inverse + (b & 0x00FF00FF) * weight) >>> 8;
+        int high = ((a >>> 8) & 0x00FF00FF) * inverse + ((b >>> 8) & 0x00FF00FF) * weight;
+        return (low & 0x00FF00FF) | (high & 0xFF00FF00);
+    }
+
+    private interface RowTask {
+        void run(int row);
+    }
+
+    private static final class Rows extends RecursiveAction {
+        private final int start;
+        private final int end;
+        private final RowTask task;
+
+        private Rows(int start, int end, RowTask task) {
+            this.start = start;
+            this.end = end;
+            this.task = task;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= ROWS_PER_TASK) {
+                for (int row = start; row < end; row++) {
+                    task.run(row);
+                }
+                return;
+            }
+            int middle = (start + end) >>> 1;
+            invokeAll(new Rows(start, middle, task), new Rows(middle, end, task));
+        }
+    }
+
+    private record Lookup(int faceSize, int width, int fractionBits, byte[] faces, int[] coordinates) {
+    }
+}
@@ -0,0 +1,137 @@
+package com.panshot.spectatorcam;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+final class EventStream {
+    private static final long HEARTBEAT_INTERVAL_SECONDS = 15L;
+    private static final int EVENT_RETRY_MILLIS = 2000;
+    private static final byte[] HEARTBEAT_EVENT = ": ping\n\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final ScheduledExecutorService executor;
+    private final Supplier<String> stateJson;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean broadcastPending = new AtomicBoolean();
+    private final ScheduledFuture<?> heartbeat;
+
+    EventStream(ScheduledExecutorService executor, Supplier<String> stateJson) {
+        this.executor = executor;
+        this.stateJson = stateJson;
+        this.heartbeat = executor.scheduleAtFixedRate(
+            this::heartbeat,
+            HEARTBEAT_INTERVAL_SECONDS,
+            HEARTBEAT_INTERVAL_SECONDS,
+            TimeUnit.SECONDS
+        );
+    }
+
+    void handle(HttpExchange exchange) throws IOException {
+        if (!PanshotWebServer.requireGet(exchange)) {
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        exchange.sendResponseHeaders(200, 0);
+        Subscriber subscriber = new Subscriber(exchange);
+        subscribers.add(subscriber);
+        subscriber.offer(stateEvent());
+        // Every exchange has its own thread, so the subscriber parks and writes right here for as long as it stays connected.
+        subscriber.run();
+    }
+
+    void notifyStateChanged() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        if (broadcastPending.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                broadcastPending.set(false);
+                byte[] event = stateEvent();
+                for (Subscriber subscriber : subscribers) {
+                    subscriber.offer(event);
+                }
+            });
+        }
+    }
+
+    void close() {
+        heartbeat.cancel(false);
+        // Viewers reconnect on their own; once the routes are gone they simply find nothing there.
+        for (Subscriber subscriber : subscribers) {
+            subscriber.close();
+        }
+    }
+
+    private void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offerIfIdle(HEARTBEAT_EVENT);
+        }
+    }
+
+    private byte[] stateEvent() {
+        return ("retry: " + EVENT_RETRY_MILLIS + "\ndata: " + stateJson.get() + "\n\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private final class Subscriber {
+        private final HttpExchange exchange;
+        private final AtomicReference<byte[]> pending = new AtomicReference<>();
+        private final Semaphore signal = new Semaphore(0);
+        private volatile boolean closed;
+
+        private Subscriber(HttpExchange exchange) {
+            this.exchange = exchange;
+        }
+
+        private void offer(byte[] event) {
+            // Each state event is a full snapshot, so a subscriber that falls behind only needs the newest one.
+            if (pending.getAndSet(event) == null) {
+                signal.release();
+            }
+        }
+
+        private void offerIfIdle(byte[] event) {
+            if (pending.compareAndSet(null, event)) {
+                signal.release();
+            }
+        }
+
+        private void close() {
+            closed = true;
+            signal.release();
+        }
+
+        private void run() {
+            try {
+                OutputStream body = exchange.getResponseBody();
+                while (true) {
+                    signal.acquire();
+                    if (closed) {
+                        return;
+                    }
+                    byte[] event = pending.getAndSet(null);
+                    if (event != null) {
+                        WriteDeadline.write(body, event);
+                        WriteDeadline.flush(body);
+                    }
+                }
+            } catch (IOException | InterruptedException ignored) {
+            } finally {
+                subscribers.remove(this);
+                exchange.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.panshot.spectatorcam;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+public final class FrameArchive {
+    public static final long DEFAULT_MAX_BYTES = 2L << 30;
+    public static final long DEFAULT_MAX_AGE_MILLIS = 24L * 60L * 60L * 1000L;
+    private static final long SEGMENT_MAX_BYTES = 64L << 20;
+    private static final long SEGMENT_MAX_MILLIS = 60L * 60L * 1000L;
+    private static final int RECORD_BYTES = 64;
+    private static final String DATA_SUFFIX = ".frames";
+    private static final String INDEX_SUFFIX = ".index";
+    private static final FrameCodec[] CODECS = FrameCodec.values();
+
+    private final Path directory;
+    private final List<Segment> segments = new ArrayList<>();
+    private long maxBytes = DEFAULT_MAX_BYTES;
+    private long maxAgeMillis = DEFAULT_MAX_AGE_MILLIS;
+    private boolean loaded;
+    private FileChannel dataChannel;
+    private FileChannel indexChannel;
+
+    public FrameArchive(Path directory) {
+        this.directory = directory;
+    }
+
+    public synchronized Entry append(EncodedFrame frame, Pose pose) throws IOException {
+        load();
+        Segment segment = writableSegment(frame.timestamp(), frame.bytes().length);
+        long offset = segment.dataBytes;
+        ByteBuffer data = ByteBuffer.wrap(frame.bytes());
+        while (data.hasRemaining()) {
+            dataChannel.write(data, offset + data.position());
+        }
+
+        // The data is written before its index record, so a crash can only leave unreferenced tail bytes behind.
+        ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        record.putLong(frame.timestamp())
+            .putDouble(pose.x())
+            .putDouble(pose.y())
+            .putDouble(pose.z())
+            .putFloat(pose.yaw())
+            .putFloat(pose.pitch())
+            .putLong(offset)
+            .putInt(frame.bytes().length)
+            .putInt(frame.width())
+            .putInt(frame.height())
+            .put((byte)frame.codec().ordinal())
+            .rewind();
+        long indexPosition = (long)segment.count * RECORD_BYTES;
+        while (record.hasRemaining()) {
+            indexChannel.write(record, indexPosition + record.position());
+        }
+
+        segment.appendRecord(record.rewind());
+        segment.dataBytes = offset + frame.bytes().length;
+        Entry entry = segment.entry(segment.count - 1);
+        enforceRetention(frame.timestamp());
+        return entry;
+    }
+
+    public synchronized Entry find(long id) throws IOException {
+        load();
+        for (int index = segments.size() - 1; index >= 0; index--) {
+            Segment segment = segments.get(index);
+            if (id >= segment.baseId) {
+                return id - segment.baseId < segment.count ? segment.entry((int)(id - segment.baseId)) : null;
+            }
+        }
+        return null;
+    }
+
+    public synchronized List<Entry> entries(long fromMillis, long toMillis, int limit) throws IOException {
+        load();
+        List<Entry> entries = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (segment.count == 0 || segment.timestamp(segment.count - 1) < fromMillis) {
+                continue;
+            }
+            for (int record = segment.firstAtOrAfter(fromMillis); record < segment.count; record++) {
+                if (segment.timestamp(record) > toMillis || entries.size() >= limit) {
+                    return entries;
+                }
+                entries.add(segment.entry(record));
+            }
+        }
+        return entries;
+    }
+
+    public byte[] read(Entry entry) throws IOException {
+        // Readers open their own channel, so serving history never contends with the writer or blocks retention.
+        try (FileChannel channel = FileChannel.open(dataPath(entry.segment()), StandardOpenOption.READ)) {
+            ByteBuffer bytes = ByteBuffer.allocate(entry.length());
+            while (bytes.hasRemaining()) {
+                if (channel.read(bytes, entry.offset() + bytes.position()) < 0) {
+                    throw new IOException("Archived frame " + entry.id() + " is truncated");
+                }
+            }
+            return bytes.array();
+        }
+    }
+
+    public synchronized void setRetention(long maxBytes, long maxAgeMillis) throws IOException {
+        this.maxBytes = Math.max(SEGMENT_MAX_BYTES, maxBytes);
+        this.maxAgeMillis = Math.max(SEGMENT_MAX_MILLIS, maxAgeMillis);
+        if (loaded) {
+            enforceRetention(System.currentTimeMillis());
+        }
+    }
+
+    public synchronized String describe() {
+        try {
+            load();
+        } catch (IOException exception) {
+            return "unreadable: " + exception.getMessage();
+        }
+        long frames = 0L;
+        long bytes = 0L;
+        for (Segment segment : segments) {
+            frames += segment.count;
+            bytes += segment.dataBytes;
+        }
+        return String.format(
+            Locale.ROOT,
+            "%d frames, %.1f MB in %d segments, keeping %d MB for %.1f hours",
+            frames,
+            bytes / (1024.0 * 1024.0),
+            segments.size(),
+            maxBytes >> 20,
+            maxAgeMillis / 3_600_000.0
+        );
+    }
+
+    public synchronized void close() {
+        closeWriter();
+    }
+
+    private void load() throws IOException {
+        if (loaded) {
+            return;
+        }
+        Files.createDirectories(directory);
+        List<Long> baseIds = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                .filter(name -> name.endsWith(INDEX_SUFFIX))
+                .forEach(name -> {
+                    try {
+                        baseIds.add(Long.parseUnsignedLong(name.substring(0, name.length() - INDEX_SUFFIX.length()), 16));
+                    } catch (NumberFormatException ignored) {
+                    }
+                });
+        }
+        baseIds.sort(null);
+        for (long baseId : baseIds) {
+            Segment segment = new Segment(baseId);
+            segment.loadIndex(Files.readAllBytes(indexPath(baseId)), sizeOrZero(dataPath(baseId)));
+            segments.add(segment);
+        }
+        loaded = true;
+    }
+
+    private Segment writableSegment(long timestamp, int frameBytes) throws IOException {
+        Segment last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        boolean full = last == null
+            || last.count > 0 && (last.dataBytes + frameBytes > SEGMENT_MAX_BYTES || timestamp - last.timestamp(0) > SEGMENT_MAX_MILLIS);
+        if (full) {
+            closeWriter();
+            last = new Segment(last == null ? 0L : last.baseId + last.count);
+            segments.add(last);
+        }
+        if (dataChannel == null) {
+            dataChannel = FileChannel.open(dataPath(last.baseId), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            indexChannel = FileChannel.open(indexPath(last.baseId), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            // Drop anything a crash left past the last complete record before appending after it.
+            dataChannel.truncate(last.dataBytes);
+            indexChannel.truncate((long)last.count * RECORD_BYTES);
+        }
+        return last;
+    }
+
+    private void enforceRetention(long now) throws IOException {
+        long totalBytes = 0L;
+        for (Segment segment : segments) {
+            totalBytes += segment.dataBytes;
+        }
+        // Whole segments are dropped oldest first; the segment being written is always kept.
+        while (segments.size() > 1) {
+            Segment oldest = segments.get(0);
+            boolean expired = oldest.count == 0 || now - oldest.timestamp(oldest.count - 1) > maxAgeMillis;
+            if (!expired && totalBytes <= maxBytes) {
+                return;
+            }
+            segments.remove(0);
+            totalBytes -= oldest.dataBytes;
+            Files.deleteIfExists(indexPath(oldest.baseId));
+            Files.deleteIfExists(dataPath(oldest.baseId));
+        }
+    }
+
+    private void closeWriter() {
+        closeQuietly(dataChannel);
+        closeQuietly(indexChannel);
+        dataChannel = null;
+        indexChannel = null;
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static long sizeOrZero(Path path) throws IOException {
+        try {
+            return Files.size(path);
+        } catch (NoSuchFileException exception) {
+            return 0L;
+        }
+    }
+
+    private Path dataPath(long baseId) {
+        return directory.resolve(String.format(Locale.ROOT, "%016x", baseId) + DATA_SUFFIX);
+    }
+
+    private Path indexPath(long baseId) {
+        return directory.resolve(String.format(Locale.ROOT, "%016x", baseId) + INDEX_SUFFIX);
+    }
+
+    public record Pose(double x, double y, double z, float yaw, float pitch) {
+    }
+
+    public record Entry(
+        long id,
+        long segment,
+        long timestamp,
+        Pose pose,
+        FrameCodec codec,
+        int width,
+        int height,
+        long offset,
+        int length
+    ) {
+        public EncodedFrame toFrame(byte[] bytes) {
+            return new EncodedFrame(bytes, codec, width, height, timestamp, id);
+        }
+    }
+
+    private static final class Segment {
+        private final long baseId;
+        private ByteBuffer index = ByteBuffer.allocate(RECORD_BYTES * 64).order(ByteOrder.LITTLE_ENDIAN);
+        private int count;
+        private long dataBytes;
+
+        private Segment(long baseId) {
+            this.baseId = baseId;
+        }
+
+        private void loadIndex(byte[] bytes, long dataSize) {
+            ByteBuffer records = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            for (int position = 0; position + RECORD_BYTES <= bytes.length; position += RECORD_BYTES) {
+                long end = records.getLong(position + 40) + records.getInt(position + 48);
+                int codec = records.get(position + 60);
+                if (end > dataSize || codec < 0 || codec >= CODECS.length) {
+                    break;
+                }
+                appendRecord(records.slice(position, RECORD_BYTES));
+                dataBytes = end;
+            }
+        }
+
+        private void appendRecord(ByteBuffer record) {
+            if (index.remaining() < RECORD_BYTES) {
+                ByteBuffer grown = ByteBuffer.allocate(index.capacity() * 2).order(ByteOrder.LITTLE_ENDIAN);
+                grown.put(index.flip());
+                index = grown;
+            }
+            index.put(record);
+            count++;
+        }
+
+        private long timestamp(int record) {
+            return index.getLong(record * RECORD_BYTES);
+        }
+
+        private int firstAtOrAfter(long timestamp) {
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (timestamp(middle) < timestamp) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private Entry entry(int record) {
+            int position = record * RECORD_BYTES;
+            return new Entry(
+                baseId + record,
+                baseId,
+                index.getLong(position),
+                new Pose(
+                    index.getDouble(position + 8),
+                    index.getDouble(position + 16),
+                    index.getDouble(position + 24),
+                    index.getFloat(position + 32),
+                    index.getFloat(position + 36)
+                ),
+                CODECS[index.get(position + 60)],
+                index.getInt(position + 52),
+                index.getInt(position + 56),
+                index.getLong(position + 40),
+                index.getInt(position + 48)
+            );
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.panshot.spectatorcam;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Locale;
+
+public enum FrameCodec {
+    PNG("png", "image/png"),
+    QOI("qoi", "image/qoi"),
+    RAW("raw", "application/zlib");
+
+    private static final int RAW_COMPRESSION_LEVEL = 1;
+
+    private final String extension;
+    private final String contentType;
+
+    FrameCodec(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public String displayName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public byte[] encode(ByteBuffer rgba, int width, int height, int pngCompressionLevel, boolean includeAlpha) throws IOException {
+        return encode(rgba, 0, width, height, width * 4, pngCompressionLevel, includeAlpha);
+    }
+
+    public byte[] encode(
+        ByteBuffer rgba,
+        int offset,
+        int width,
+        int height,
+        int rowStride,
+        int pngCompressionLevel,
+        boolean includeAlpha
+    ) throws IOException {
+        return switch (this) {
+            case PNG -> new ParallelPngEncoder(pngCompressionLevel, includeAlpha).encode(rgba, offset, width, height, rowStride);
+            case QOI -> QoiEncoder.encode(rgba, offset, width, height, rowStride, includeAlpha);
+            case RAW -> encodeRaw(rgba, offset, width, height, rowStride);
+        };
+    }
+
+    private static byte[] encodeRaw(ByteBuffer rgba, int offset, int width, int height, int rowStride) throws IOException {
+        ByteBuffer pixels = rgba.duplicate();
+        int rowBytes = width * 4;
+        return ParallelDeflater.compress(
+            height,
+            rowBytes,
+            (row, target) -> pixels.get(offset + row * rowStride, target, 0, rowBytes),
+            RAW_COMPRESSION_LEVEL
+        ).toZlibStream();
+    }
+}
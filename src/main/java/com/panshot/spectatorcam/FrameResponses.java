@@ -0,0 +1,79 @@
+package com.panshot.spectatorcam;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+final class FrameResponses {
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE_CACHE_CONTROL = "no-cache";
+    // Frame versions restart with the game, so URLs and ETags carry a per-session token as well.
+    private static final String SESSION = Long.toString(System.currentTimeMillis(), 36);
+
+    private FrameResponses() {
+    }
+
+    static String session() {
+        return SESSION;
+    }
+
+    static void send(HttpExchange exchange, EncodedFrame frame) throws IOException {
+        String etag = "\"" + SESSION + "-" + frame.codec().extension() + "-" + frame.version() + "\"";
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("ETag", etag);
+        headers.set("Last-Modified", DateTimeFormatter.RFC_1123_DATE_TIME.format(
+            Instant.ofEpochMilli(frame.timestamp()).atOffset(ZoneOffset.UTC)
+        ));
+        // Only a URL naming the current version may be cached forever; anything else must revalidate.
+        headers.set("Cache-Control", isRequestedVersion(exchange, frame.version()) ? IMMUTABLE_CACHE_CONTROL : REVALIDATE_CACHE_CONTROL);
+
+        if (matchesEtag(exchange.getRequestHeaders().getFirst("If-None-Match"), etag)) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        byte[] payload = frame.bytes();
+        headers.set("Content-Type", frame.codec().contentType());
+        headers.set("X-Frame-Width", Integer.toString(frame.width()));
+        headers.set("X-Frame-Height", Integer.toString(frame.height()));
+        exchange.sendResponseHeaders(200, payload.length);
+        // Every client is handed the same encoded array; nothing is copied per request.
+        WriteDeadline.write(exchange.getResponseBody(), payload);
+        exchange.close();
+    }
+
+    private static boolean isRequestedVersion(HttpExchange exchange, long version) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return false;
+        }
+        String expected = Long.toString(version);
+        for (String parameter : query.split("&")) {
+            if (parameter.startsWith("v=") && parameter.substring(2).equals(expected)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matchesEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.startsWith("W/")) {
+                trimmed = trimmed.substring(2);
+            }
+            if (trimmed.equals(etag) || trimmed.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
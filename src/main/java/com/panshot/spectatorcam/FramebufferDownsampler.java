@@ -0,0 +1,87 @@
+package com.panshot.spectatorcam;
+
+import com.mojang.blaze3d.systems.RenderSystem;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.gl.Framebuffer;
+import net.minecraft.client.gl.SimpleFramebuffer;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL30;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class FramebufferDownsampler {
+    private final List<SimpleFramebuffer> stages = new ArrayList<>();
+
+    public Framebuffer resolve(Framebuffer source, int width, int height) {
+        RenderSystem.assertOnRenderThread();
+        if (source.textureWidth == width && source.textureHeight == height) {
+            return source;
+        }
+        if (source.textureWidth < width || source.textureHeight < height) {
+            throw new IllegalArgumentException("Downsample target must not be larger than the source");
+        }
+
+        int previousReadFramebuffer = GL11.glGetInteger(GL30.GL_READ_FRAMEBUFFER_BINDING);
+        int previousDrawFramebuffer = GL11.glGetInteger(GL30.GL_DRAW_FRAMEBUFFER_BINDING);
+        Framebuffer current = source;
+        int stage = 0;
+        try {
+            while (current.textureWidth != width || current.textureHeight != height) {
+                // A linear blit only averages the two nearest texels per axis, so larger factors are resolved in halving steps.
+                int nextWidth = current.textureWidth > width * 2 ? (current.textureWidth + 1) / 2 : width;
+                int nextHeight = current.textureHeight > height * 2 ? (current.textureHeight + 1) / 2 : height;
+                SimpleFramebuffer target = stage(stage++, nextWidth, nextHeight);
+                GL30.glBindFramebuffer(GL30.GL_READ_FRAMEBUFFER, current.fbo);
+                GL30.glBindFramebuffer(GL30.GL_DRAW_FRAMEBUFFER, target.fbo);
+                GL30.glBlitFramebuffer(
+                    0,
+                    0,
+                    current.textureWidth,
+                    current.textureHeight,
+                    0,
+                    0,
+                    nextWidth,
+                    nextHeight,
+                    GL11.GL_COLOR_BUFFER_BIT,
+                    GL11.GL_LINEAR
+                );
+                current = target;
+            }
+        } finally {
+            GL30.glBindFramebuffer(GL30.GL_READ_FRAMEBUFFER, previousReadFramebuffer);
+            GL30.glBindFramebuffer(GL30.GL_DRAW_FRAMEBUFFER, previousDrawFramebuffer);
+        }
+        return current;
+    }
+
+    public void close() {
+        for (SimpleFramebuffer stage : stages) {
+            stage.delete();
+        }
+        stages.clear();
+    }
+
+    private SimpleFramebuffer stage(int index, int width, int height) {
+        if (index < stages.size()) {
+            SimpleFramebuffer existing = stages.get(index);
+            if (existing.textureWidth == width && existing.textureHeight == height) {
+                return existing;
+            }
+            existing.delete();
+            SimpleFramebuffer replacement = createStage(width, height);
+            stages.set(index, replacement);
+            return replacement;
+        }
+
+        SimpleFramebuffer created = createStage(width, height);
+        stages.add(created);
+        return created;
+    }
+
+    private static SimpleFramebuffer createStage(int width, int height) {
+        SimpleFramebuffer framebuffer = new SimpleFramebuffer(width, height, false, MinecraftClient.IS_SYSTEM_MAC);
+        framebuffer.setClearColor(0.0f, 0.0f, 0.0f, 0.0f);
+        return framebuffer;
+    }
+}
@@ -0,0 +1,83 @@
+package com.panshot.spectatorcam;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+
+public final class JpegEncoder {
+    public static final int DEFAULT_QUALITY = 80;
+    private static final ThreadLocal<BufferedImage> SCRATCH = new ThreadLocal<>();
+    private static final ThreadLocal<byte[]> ROW = new ThreadLocal<>();
+
+    private JpegEncoder() {
+    }
+
+    public static byte[] encode(ByteBuffer rgba, int width, int height, int quality) throws IOException {
+        return encode(rgba, 0, width, height, width * 4, quality);
+    }
+
+    public static byte[] encode(ByteBuffer rgba, int offset, int width, int height, int rowStride, int quality) throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Image size must be positive");
+        }
+        if (quality < 1 || quality > 100) {
+            throw new IllegalArgumentException("quality must be between 1 and 100");
+        }
+
+        BufferedImage image = scratchImage(width, height);
+        byte[] bgr = ((DataBufferByte)image.getRaster().getDataBuffer()).getData();
+        byte[] row = scratchRow(width * 4);
+        ByteBuffer pixels = rgba.duplicate();
+        for (int y = 0, out = 0; y < height; y++) {
+            pixels.get(offset + y * rowStride, row, 0, width * 4);
+            for (int in = 0; in < width * 4; in += 4, out += 3) {
+                bgr[out] = row[in + 2];
+                bgr[out + 1] = row[in + 1];
+                bgr[out + 2] = row[in];
+            }
+        }
+
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!writers.hasNext()) {
+            throw new IOException("No JPEG writer available");
+        }
+        ImageWriter writer = writers.next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(width * height / 4);
+        try (MemoryCacheImageOutputStream output = new MemoryCacheImageOutputStream(bytes)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality / 100.0f);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static BufferedImage scratchImage(int width, int height) {
+        BufferedImage image = SCRATCH.get();
+        if (image == null || image.getWidth() != width || image.getHeight() != height) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+            SCRATCH.set(image);
+        }
+        return image;
+    }
+
+    private static byte[] scratchRow(int length) {
+        byte[] row = ROW.get();
+        if (row == null || row.length < length) {
+            row = new byte[length];
+            ROW.set(row);
+        }
+        return row;
+    }
+}
@@ -0,0 +1,63 @@
+package com.panshot.spectatorcam;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+public final class LatestSlotQueue<T> {
+    private final AtomicReferenceArray<T> pending;
+    private final Consumer<T> discarder;
+    private final Handler<T> handler;
+    private final ThreadPoolExecutor executor;
+
+    public LatestSlotQueue(String threadName, int slots, int workerCount, Consumer<T> discarder, Handler<T> handler) {
+        this.pending = new AtomicReferenceArray<>(slots);
+        this.discarder = discarder;
+        this.handler = handler;
+        this.executor = new ThreadPoolExecutor(
+            workerCount,
+            workerCount,
+            30L,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public void submit(int slot, T item) {
+        // Each slot holds only its newest item, so a burst on one slot never pushes out another slot's update.
+        T replaced = pending.getAndSet(slot, item);
+        if (replaced != null) {
+            discarder.accept(replaced);
+            return;
+        }
+        executor.execute(() -> runSlot(slot));
+    }
+
+    public void clear() {
+        for (int slot = 0; slot < pending.length(); slot++) {
+            T item = pending.getAndSet(slot, null);
+            if (item != null) {
+                discarder.accept(item);
+            }
+        }
+    }
+
+    private void runSlot(int slot) {
+        T item = pending.getAndSet(slot, null);
+        if (item != null) {
+            handler.process(slot, item);
+        }
+    }
+
+    public interface Handler<T> {
+        void process(int slot, T item);
+    }
+}
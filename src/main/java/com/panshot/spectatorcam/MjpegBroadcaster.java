@@ -0,0 +1,121 @@
+package com.panshot.spectatorcam;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+final class MjpegBroadcaster {
+    private static final String BOUNDARY = "panshotframe";
+    private static final byte[] PART_END = "\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final long HEARTBEAT_INTERVAL_SECONDS = 15L;
+
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+    private volatile Part latestPart;
+
+    boolean hasClients() {
+        return !clients.isEmpty();
+    }
+
+    int clientCount() {
+        return clients.size();
+    }
+
+    void publish(byte[] jpeg) {
+        String header = "--" + BOUNDARY + "\r\n"
+            + "Content-Type: image/jpeg\r\n"
+            + "Content-Length: " + jpeg.length + "\r\n\r\n";
+        Part part = new Part(header.getBytes(StandardCharsets.US_ASCII), jpeg);
+        latestPart = part;
+        for (Client client : clients) {
+            client.offer(part);
+        }
+    }
+
+    void serve(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "multipart/x-mixed-replace; boundary=" + BOUNDARY);
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        exchange.sendResponseHeaders(200, 0);
+
+        Client client = new Client(exchange);
+        clients.add(client);
+        Part part = latestPart;
+        if (part != null) {
+            client.offer(part);
+        }
+        // Every exchange has its own thread, so each client drains at its own pace right here.
+        client.run();
+    }
+
+    void close() {
+        for (Client client : clients) {
+            client.close();
+        }
+    }
+
+    private record Part(byte[] header, byte[] jpeg) {
+    }
+
+    private final class Client {
+        private final HttpExchange exchange;
+        private final AtomicReference<Part> pending = new AtomicReference<>();
+        private final Semaphore signal = new Semaphore(0);
+        private volatile boolean closed;
+
+        private Client(HttpExchange exchange) {
+            this.exchange = exchange;
+        }
+
+        private void offer(Part part) {
+            // Only the newest frame is kept; anything the writer has not reached yet is dropped.
+            if (pending.getAndSet(part) == null) {
+                signal.release();
+            }
+        }
+
+        private void close() {
+            closed = true;
+            signal.release();
+        }
+
+        private void run() {
+            try {
+                OutputStream body = exchange.getResponseBody();
+                while (true) {
+                    boolean signalled = signal.tryAcquire(HEARTBEAT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+                    if (closed) {
+                        return;
+                    }
+                    if (!signalled) {
+                        // An idle camera publishes nothing, so a departed viewer is only noticed by writing to it:
+                        // resend the current frame, or before the first one a line break the client skips as preamble.
+                        Part latest = latestPart;
+                        if (latest == null) {
+                            WriteDeadline.write(body, PART_END);
+                            WriteDeadline.flush(body);
+                            continue;
+                        }
+                        pending.compareAndSet(null, latest);
+                    }
+                    Part part = pending.getAndSet(null);
+                    if (part != null) {
+                        WriteDeadline.write(body, part.header());
+                        WriteDeadline.write(body, part.jpeg());
+                        WriteDeadline.write(body, PART_END);
+                        WriteDeadline.flush(body);
+                    }
+                }
+            } catch (IOException | InterruptedException ignored) {
+            } finally {
+                clients.remove(this);
+                exchange.close();
+            }
+        }
+    }
+}
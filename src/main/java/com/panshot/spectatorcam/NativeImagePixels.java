@@ -0,0 +1,32 @@
+package com.panshot.spectatorcam;
+
+import com.panshot.spectatorcam.mixin.NativeImageAccessor;
+import net.minecraft.client.texture.NativeImage;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+
+public final class NativeImagePixels {
+    private NativeImagePixels() {
+    }
+
+    public static long address(NativeImage image) {
+        return ((NativeImageAccessor)(Object)image).spectatorcam$getPointer();
+    }
+
+    public static int byteSize(NativeImage image) {
+        return image.getWidth() * image.getHeight() * image.getFormat().getChannelCount();
+    }
+
+    public static ByteBuffer view(NativeImage image) {
+        return MemoryUtil.memByteBuffer(address(image), byteSize(image));
+    }
+
+    public static void fillOpaqueAlpha(NativeImage image) {
+        long pointer = address(image);
+        long end = pointer + (long)image.getWidth() * image.getHeight() * 4L;
+        for (long address = pointer + 3L; address < end; address += 4L) {
+            MemoryUtil.memPutByte(address, (byte)0xFF);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.panshot.spectatorcam;
+
+import net.minecraft.client.texture.NativeImage;
+
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+public final class NativeImagePool {
+    private final LinkedHashMap<Long, ArrayDeque<NativeImage>> idle = new LinkedHashMap<>(16, 0.75f, true);
+    private final IdentityHashMap<NativeImage, Integer> extraOwners = new IdentityHashMap<>();
+    private long maxIdleBytes;
+    private long idleBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public NativeImagePool(long maxIdleBytes) {
+        setMaxIdleBytes(maxIdleBytes);
+    }
+
+    public NativeImage acquire(int width, int height) {
+        synchronized (this) {
+            ArrayDeque<NativeImage> images = idle.get(key(width, height));
+            NativeImage image = images != null ? images.pollFirst() : null;
+            if (image != null) {
+                idleBytes -= NativeImagePixels.byteSize(image);
+                hits++;
+                return image;
+            }
+            misses++;
+        }
+        // Contents are left as-is; every caller overwrites the full image.
+        return new NativeImage(NativeImage.Format.RGBA, width, height, false);
+    }
+
+    public synchronized void retain(NativeImage image) {
+        // Each retain needs a matching release; the image only returns to the pool after the last one.
+        extraOwners.merge(image, 1, Integer::sum);
+    }
+
+    public void release(NativeImage image) {
+        if (image == null) {
+            return;
+        }
+        synchronized (this) {
+            Integer owners = extraOwners.get(image);
+            if (owners != null) {
+                if (owners == 1) {
+                    extraOwners.remove(image);
+                } else {
+                    extraOwners.put(image, owners - 1);
+                }
+                return;
+            }
+        }
+        if (image.getFormat() != NativeImage.Format.RGBA) {
+            image.close();
+            return;
+        }
+
+        long size = NativeImagePixels.byteSize(image);
+        synchronized (this) {
+            if (size <= maxIdleBytes) {
+                evictUntil(maxIdleBytes - size);
+                idle.computeIfAbsent(key(image.getWidth(), image.getHeight()), ignored -> new ArrayDeque<>()).addFirst(image);
+                idleBytes += size;
+                return;
+            }
+            evictions++;
+        }
+        image.close();
+    }
+
+    public synchronized void setMaxIdleBytes(long maxIdleBytes) {
+        if (maxIdleBytes < 0L) {
+            throw new IllegalArgumentException("maxIdleBytes must not be negative");
+        }
+        this.maxIdleBytes = maxIdleBytes;
+        evictUntil(maxIdleBytes);
+    }
+
+    public synchronized long maxIdleBytes() {
+        return maxIdleBytes;
+    }
+
+    public synchronized void clear() {
+        evictUntil(0L);
+    }
+
+    public synchronized String describe() {
+        long requests = hits + misses;
+        return String.format(
+            Locale.ROOT,
+            "%d MB idle of %d MB, hits %d, misses %d (%.0f%% hit rate), evictions %d",
+            idleBytes >> 20,
+            maxIdleBytes >> 20,
+            hits,
+            misses,
+            requests > 0L ? hits * 100.0 / requests : 0.0,
+            evictions
+        );
+    }
+
+    private void evictUntil(long targetBytes) {
+        // Least recently used sizes go first, so a resolution change drains the old buffers.
+        Iterator<Map.Entry<Long, ArrayDeque<NativeImage>>> iterator = idle.entrySet().iterator();
+        while (idleBytes > targetBytes && iterator.hasNext()) {
+            ArrayDeque<NativeImage> images = iterator.next().getValue();
+            while (idleBytes > targetBytes && !images.isEmpty()) {
+                NativeImage image = images.pollLast();
+                idleBytes -= NativeImagePixels.byteSize(image);
+                evictions++;
+                image.close();
+            }
+            if (images.isEmpty()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static long key(int width, int height) {
+        return ((long)width << 32) | (height & 0xFFFFFFFFL);
+    }
+}
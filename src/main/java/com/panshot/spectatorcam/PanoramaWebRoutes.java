@@ -0,0 +1,208 @@
+package com.panshot.spectatorcam;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+
+public final class PanoramaWebRoutes implements PanshotWebServer.Module {
+    private static final String DEFAULT_MOUNT_NAME = "panorama";
+    private static final int FACE_COUNT = 6;
+
+    private final PanshotWebServer server;
+    private final String mountName;
+    private volatile EventStream events;
+    private volatile StateProvider stateProvider;
+    private String faceRoute;
+    private String levelRoute;
+
+    public PanoramaWebRoutes(PanshotWebServer server) {
+        this(server, DEFAULT_MOUNT_NAME);
+    }
+
+    public PanoramaWebRoutes(PanshotWebServer server, String mountName) {
+        this.server = server;
+        this.mountName = mountName;
+    }
+
+    public String ensureStarted(StateProvider provider) throws IOException {
+        this.stateProvider = Objects.requireNonNull(provider, "provider");
+        return server.mount(mountName, this);
+    }
+
+    public void unmount() {
+        server.unmount(mountName, this);
+        EventStream stream = events;
+        events = null;
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    @Override
+    public void registerRoutes(PanshotWebServer.Routes routes) {
+        routes.page("/web/panorama_viewer.html");
+        for (FrameCodec codec : FrameCodec.values()) {
+            routes.add("live-cubemap." + codec.extension(), exchange -> handleLiveCubemap(exchange, codec));
+            routes.add("live-equirect." + codec.extension(), exchange -> handleLiveEquirect(exchange, codec));
+        }
+        faceRoute = routes.prefix() + "live-face/";
+        routes.add("live-face/", this::handleLiveFace);
+        levelRoute = routes.prefix() + "live-level/";
+        routes.add("live-level/", this::handleLiveLevel);
+        routes.archive(this::currentArchive);
+        events = routes.events(this::buildStateJson);
+    }
+
+    private String buildStateJson() {
+        StateProvider provider = stateProvider;
+        EncodedFrame frame = provider != null ? provider.getLatestCubemapFrame() : null;
+        boolean available = frame != null;
+        // The full-size atlas is skipped while live faces cover full detail; viewers then stop at the largest level.
+        boolean full = frame != null && frame.bytes().length > 0;
+        long lastModified = frame != null ? frame.timestamp() : 0L;
+        long version = frame != null ? frame.version() : 0L;
+        boolean running = provider != null && provider.isPanoramaRunning();
+        String codec = frame != null ? frame.codec().displayName() : "";
+        int width = frame != null ? frame.width() : 0;
+        int height = frame != null ? frame.height() : 0;
+        StringBuilder levelSizes = new StringBuilder();
+        if (provider != null && frame != null) {
+            for (EncodedFrame level : provider.getLatestCubemapLevels()) {
+                if (level.version() == version) {
+                    levelSizes.append(levelSizes.length() > 0 ? "," : "").append(level.width() / 3);
+                }
+            }
+        }
+        EncodedFrame equirect = provider != null ? provider.getLatestEquirectFrame() : null;
+        StringBuilder faceVersions = new StringBuilder();
+        for (int index = 0; index < FACE_COUNT; index++) {
+            EncodedFrame face = provider != null ? provider.getLatestFaceFrame(index) : null;
+            if (index > 0) {
+                faceVersions.append(',');
+            }
+            faceVersions.append(face != null ? face.version() : 0L);
+        }
+
+        return "{\"running\":" + running
+            + ",\"available\":" + available
+            + ",\"lastModified\":" + lastModified
+            + ",\"version\":" + version
+            + ",\"session\":\"" + FrameResponses.session() + "\""
+            + ",\"codec\":\"" + codec + "\""
+            + ",\"width\":" + width
+            + ",\"height\":" + height
+            + ",\"full\":" + full
+            + ",\"levels\":[" + levelSizes + "]"
+            + ",\"equirect\":" + (equirect != null ? equirect.version() : 0L)
+            + ",\"deduplicated\":" + (provider != null ? provider.getDeduplicatedFrames() : 0L)
+            + ",\"faces\":[" + faceVersions + "]}";
+    }
+
+    private void handleLiveCubemap(HttpExchange exchange, FrameCodec codec) throws IOException {
+        if (!PanshotWebServer.requireGet(exchange)) {
+            return;
+        }
+
+        StateProvider provider = stateProvider;
+        EncodedFrame frame = provider != null ? provider.getLatestCubemapFrame() : null;
+        if (frame == null || frame.codec() != codec || frame.bytes().length == 0) {
+            PanshotWebServer.sendNotFound(exchange);
+            return;
+        }
+
+        FrameResponses.send(exchange, frame);
+    }
+
+    private void handleLiveEquirect(HttpExchange exchange, FrameCodec codec) throws IOException {
+        if (!PanshotWebServer.requireGet(exchange)) {
+            return;
+        }
+
+        StateProvider provider = stateProvider;
+        EncodedFrame frame = provider != null ? provider.getLatestEquirectFrame() : null;
+        if (frame == null || frame.codec() != codec || frame.bytes().length == 0) {
+            PanshotWebServer.sendNotFound(exchange);
+            return;
+        }
+
+        FrameResponses.send(exchange, frame);
+    }
+
+    private void handleLiveFace(HttpExchange exchange) throws IOException {
+        if (!PanshotWebServer.requireGet(exchange)) {
+            return;
+        }
+
+        String indexText = exchange.getRequestURI().getPath().substring(faceRoute.length());
+        int index = indexText.length() == 1 ? indexText.charAt(0) - '0' : -1;
+        StateProvider provider = stateProvider;
+        EncodedFrame frame = provider != null && index >= 0 && index < FACE_COUNT ? provider.getLatestFaceFrame(index) : null;
+        if (frame == null || frame.bytes().length == 0) {
+            PanshotWebServer.sendNotFound(exchange);
+            return;
+        }
+
+        FrameResponses.send(exchange, frame);
+    }
+
+    private void handleLiveLevel(HttpExchange exchange) throws IOException {
+        if (!PanshotWebServer.requireGet(exchange)) {
+            return;
+        }
+
+        int faceSize = parseFaceSize(exchange.getRequestURI().getPath().substring(levelRoute.length()));
+        StateProvider provider = stateProvider;
+        EncodedFrame frame = null;
+        if (provider != null && faceSize > 0) {
+            for (EncodedFrame level : provider.getLatestCubemapLevels()) {
+                if (level.width() == faceSize * 3) {
+                    frame = level;
+                }
+            }
+        }
+        if (frame == null || frame.bytes().length == 0) {
+            PanshotWebServer.sendNotFound(exchange);
+            return;
+        }
+
+        FrameResponses.send(exchange, frame);
+    }
+
+    private static int parseFaceSize(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException exception) {
+            return -1;
+        }
+    }
+
+    private FrameArchive currentArchive() {
+        StateProvider provider = stateProvider;
+        return provider != null ? provider.getArchive() : null;
+    }
+
+    public void notifyStateChanged() {
+        EventStream stream = events;
+        if (stream != null) {
+            stream.notifyStateChanged();
+        }
+    }
+
+    public interface StateProvider {
+        boolean isPanoramaRunning();
+
+        EncodedFrame getLatestCubemapFrame();
+
+        List<EncodedFrame> getLatestCubemapLevels();
+
+        EncodedFrame getLatestEquirectFrame();
+
+        FrameArchive getArchive();
+
+        EncodedFrame getLatestFaceFrame(int index);
+
+        long getDeduplicatedFrames();
+    }
+}
@@ -0,0 +1,258 @@
+package com.panshot.spectatorcam;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.BindException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public final class PanshotWebServer {
+    private static final String HOST = "127.0.0.1";
+    // Fixed so viewer bookmarks survive restarts; an ephemeral port is only used when it is taken.
+    private static final int PREFERRED_PORT = 8765;
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+    private static final String PAGE_CACHE_CONTROL = "no-cache";
+    private static final Pattern ASSET_REFERENCE = Pattern.compile("@asset/([A-Za-z0-9_-]+)(\\.[A-Za-z0-9]+)");
+
+    private final Map<String, Module> modules = new LinkedHashMap<>();
+    private final Map<String, List<String>> contexts = new HashMap<>();
+    private final Map<String, String> assetUrls = new HashMap<>();
+    private HttpServer server;
+    private ExecutorService executor;
+    private ScheduledExecutorService eventExecutor;
+    private int port = -1;
+
+    public synchronized String mount(String name, Module module) throws IOException {
+        ensureStarted();
+        Module mounted = modules.get(name);
+        if (mounted == null) {
+            modules.put(name, module);
+            module.registerRoutes(new Routes(name));
+        } else if (mounted != module) {
+            throw new IllegalStateException("Web route " + name + " is already mounted");
+        }
+        return getUrl() + name + "/";
+    }
+
+    public synchronized void unmount(String name, Module module) {
+        if (modules.get(name) != module) {
+            return;
+        }
+        modules.remove(name);
+        List<String> paths = contexts.remove(name);
+        if (paths != null && server != null) {
+            for (String path : paths) {
+                server.removeContext(path);
+            }
+        }
+    }
+
+    private void ensureStarted() throws IOException {
+        if (server != null) {
+            return;
+        }
+
+        server = bind();
+        server.createContext("/", this::handleRoot);
+        // One thread per exchange, so a slow download never holds up /api/state or another viewer.
+        executor = Executors.newThreadPerTaskExecutor(connectionThreads("panshot-web-").factory());
+        server.setExecutor(executor);
+        eventExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "panshot-web-events");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.start();
+        port = server.getAddress().getPort();
+    }
+
+    static Thread.Builder connectionThreads(String namePrefix) {
+        // Before JDK 24 a virtual thread blocked inside the server's synchronized socket writes pins its carrier,
+        // so a single stalled client could starve every other connection; fall back to platform threads there.
+        if (Runtime.version().feature() >= 24) {
+            return Thread.ofVirtual().name(namePrefix, 0);
+        }
+        return Thread.ofPlatform().daemon().name(namePrefix, 0);
+    }
+
+    private static HttpServer bind() throws IOException {
+        try {
+            return HttpServer.create(new InetSocketAddress(HOST, PREFERRED_PORT), 0);
+        } catch (BindException exception) {
+            return HttpServer.create(new InetSocketAddress(HOST, 0), 0);
+        }
+    }
+
+    private String getUrl() {
+        return "http://" + HOST + ":" + port + "/";
+    }
+
+    private void handleRoot(HttpExchange exchange) throws IOException {
+        if (!requireGet(exchange)) {
+            return;
+        }
+
+        String path = exchange.getRequestURI().getPath();
+        List<String> names;
+        synchronized (this) {
+            names = new ArrayList<>(modules.keySet());
+        }
+        if (names.contains(path.substring(1))) {
+            exchange.getResponseHeaders().set("Location", path + "/");
+            exchange.sendResponseHeaders(301, -1);
+            exchange.close();
+            return;
+        }
+        if (!"/".equals(path)) {
+            sendNotFound(exchange);
+            return;
+        }
+
+        StringBuilder html = new StringBuilder("<!doctype html><html><head><meta charset=\"utf-8\"><title>PanShot</title></head><body><ul>");
+        for (String name : names) {
+            html.append("<li><a href=\"").append(name).append("/\">").append(name).append("</a></li>");
+        }
+        html.append("</ul></body></html>");
+        sendBytes(exchange, "text/html; charset=utf-8", html.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private synchronized String assetUrl(String baseName, String extension) {
+        String resourceName = baseName + extension;
+        String url = assetUrls.get(resourceName);
+        if (url == null) {
+            StaticAsset asset = StaticAsset.of(contentTypeFor(extension), loadResourceBytes("/web/" + resourceName));
+            // The content hash is part of the URL, so the bytes behind it can never change and may be cached forever.
+            url = "/assets/" + baseName + "." + asset.hash() + extension;
+            server.createContext(url, exchange -> {
+                if (requireGet(exchange)) {
+                    asset.send(exchange, IMMUTABLE_CACHE_CONTROL);
+                }
+            });
+            assetUrls.put(resourceName, url);
+        }
+        return url;
+    }
+
+    private String resolveAssetReferences(String html) {
+        Matcher matcher = ASSET_REFERENCE.matcher(html);
+        StringBuilder resolved = new StringBuilder(html.length());
+        while (matcher.find()) {
+            matcher.appendReplacement(resolved, Matcher.quoteReplacement(assetUrl(matcher.group(1), matcher.group(2))));
+        }
+        matcher.appendTail(resolved);
+        return resolved.toString();
+    }
+
+    private static String contentTypeFor(String extension) {
+        return switch (extension) {
+            case ".js" -> "text/javascript; charset=utf-8";
+            case ".css" -> "text/css; charset=utf-8";
+            case ".html" -> "text/html; charset=utf-8";
+            default -> "application/octet-stream";
+        };
+    }
+
+    static boolean requireGet(HttpExchange exchange) throws IOException {
+        if ("GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+            return true;
+        }
+        exchange.sendResponseHeaders(405, -1);
+        exchange.close();
+        return false;
+    }
+
+    static void sendBytes(HttpExchange exchange, String contentType, byte[] payload) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        exchange.sendResponseHeaders(200, payload.length);
+        WriteDeadline.write(exchange.getResponseBody(), payload);
+        exchange.close();
+    }
+
+    static void sendNotFound(HttpExchange exchange) throws IOException {
+        exchange.sendResponseHeaders(404, -1);
+        exchange.close();
+    }
+
+    static byte[] loadResourceBytes(String resourcePath) {
+        try (InputStream stream = PanshotWebServer.class.getResourceAsStream(resourcePath)) {
+            if (stream == null) {
+                throw new IllegalStateException("Missing resource: " + resourcePath);
+            }
+            return stream.readAllBytes();
+        } catch (IOException exception) {
+            throw new IllegalStateException("Failed to read resource: " + resourcePath, exception);
+        }
+    }
+
+    public interface Module {
+        void registerRoutes(Routes routes);
+    }
+
+    public final class Routes {
+        private final String name;
+        private final String prefix;
+
+        private Routes(String name) {
+            this.name = name;
+            this.prefix = "/" + name + "/";
+        }
+
+        public String prefix() {
+            return prefix;
+        }
+
+        public void page(String resourcePath) {
+            String html = resolveAssetReferences(new String(loadResourceBytes(resourcePath), StandardCharsets.UTF_8));
+            StaticAsset page = StaticAsset.of("text/html; charset=utf-8", html.getBytes(StandardCharsets.UTF_8));
+            add("", exchange -> {
+                if (!requireGet(exchange)) {
+                    return;
+                }
+                if (!prefix.equals(exchange.getRequestURI().getPath())) {
+                    sendNotFound(exchange);
+                    return;
+                }
+                // Pages revalidate against their hash, which changes whenever a referenced asset does.
+                page.send(exchange, PAGE_CACHE_CONTROL);
+            });
+        }
+
+        public void add(String path, HttpHandler handler) {
+            server.createContext(prefix + path, handler);
+            contexts.computeIfAbsent(name, key -> new ArrayList<>()).add(prefix + path);
+        }
+
+        EventStream events(Supplier<String> stateJson) {
+            EventStream stream = new EventStream(eventExecutor, stateJson);
+            add("api/events", stream::handle);
+            add("api/state", exchange -> {
+                if (requireGet(exchange)) {
+                    sendBytes(exchange, "application/json; charset=utf-8", stateJson.get().getBytes(StandardCharsets.UTF_8));
+                }
+            });
+            return stream;
+        }
+
+        void archive(Supplier<FrameArchive> archive) {
+            ArchiveRoutes routes = new ArchiveRoutes(archive, prefix + "archive/frame/");
+            add("archive/index", routes::handleIndex);
+            add("archive/frame/", routes::handleFrame);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.panshot.spectatorcam;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Adler32;
+import java.util.zip.Deflater;
+
+public final class ParallelDeflater {
+    private static final int TARGET_BAND_BYTES = 512 * 1024;
+    private static final int DICTIONARY_BYTES = 32 * 1024;
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+        Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+        runnable -> {
+            Thread thread = new Thread(runnable, "panshot-deflate");
+            thread.setDaemon(true);
+            return thread;
+        }
+    );
+
+    private ParallelDeflater() {
+    }
+
+    public static Result compress(int rowCount, int rowLength, RowSource source, int level) throws IOException {
+        if (rowCount <= 0 || rowLength <= 0) {
+            throw new IllegalArgumentException("Row count and length must be positive");
+        }
+
+        int rowsPerBand = Math.max(1, TARGET_BAND_BYTES / rowLength);
+        List<Future<Band>> futures = new ArrayList<>();
+        for (int startRow = 0; startRow < rowCount; startRow += rowsPerBand) {
+            int bandStart = startRow;
+            int bandEnd = Math.min(rowCount, startRow + rowsPerBand);
+            futures.add(EXECUTOR.submit(() -> compressBand(source, rowLength, bandStart, bandEnd, bandEnd == rowCount, level)));
+        }
+
+        List<byte[]> blocks = new ArrayList<>(futures.size());
+        long adler = 1L;
+        try {
+            for (Future<Band> future : futures) {
+                Band band = future.get();
+                blocks.add(band.data);
+                adler = combineAdler32(adler, band.adler, band.rawLength);
+            }
+        } catch (InterruptedException exception) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IOException("Deflate interrupted", exception);
+        } catch (ExecutionException exception) {
+            futures.forEach(future -> future.cancel(true));
+            throw new IOException("Deflate failed", exception.getCause());
+        }
+        return new Result(blocks, adler, level);
+    }
+
+    private static Band compressBand(RowSource source, int rowLength, int startRow, int endRow, boolean last, int level) {
+        byte[] row = new byte[rowLength];
+        Deflater deflater = new Deflater(level, true);
+        try {
+            if (startRow > 0) {
+                // Prime the window with the tail of the previous band, as pigz does, so bands compress like one stream.
+                int dictionaryRows = Math.min(startRow, (DICTIONARY_BYTES + rowLength - 1) / rowLength);
+                byte[] dictionary = new byte[dictionaryRows * rowLength];
+                int firstRow = startRow - dictionaryRows;
+                for (int index = firstRow; index < startRow; index++) {
+                    source.readRow(index, row);
+                    System.arraycopy(row, 0, dictionary, (index - firstRow) * rowLength, rowLength);
+                }
+                int dictionaryLength = Math.min(DICTIONARY_BYTES, dictionary.length);
+                deflater.setDictionary(dictionary, dictionary.length - dictionaryLength, dictionaryLength);
+            }
+
+            ByteSink sink = new ByteSink(Math.max(1024, (endRow - startRow) * rowLength / 2));
+            byte[] buffer = new byte[64 * 1024];
+            Adler32 adler = new Adler32();
+            for (int index = startRow; index < endRow; index++) {
+                source.readRow(index, row);
+                adler.update(row, 0, rowLength);
+                deflater.setInput(row, 0, rowLength);
+                while (!deflater.needsInput()) {
+                    int count = deflater.deflate(buffer, 0, buffer.length, Deflater.NO_FLUSH);
+                    sink.write(buffer, count);
+                }
+            }
+
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    int count = deflater.deflate(buffer, 0, buffer.length, Deflater.NO_FLUSH);
+                    sink.write(buffer, count);
+                }
+            } else {
+                // SYNC_FLUSH ends the band on a byte boundary without BFINAL, so the bands concatenate into one stream.
+                int count;
+                do {
+                    count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    sink.write(buffer, count);
+                } while (count == buffer.length);
+            }
+            return new Band(sink.toByteArray(), adler.getValue(), (long)(endRow - startRow) * rowLength);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static byte[] zlibHeader(int level) {
+        byte flags;
+        if (level <= 1) {
+            flags = 0x01;
+        } else if (level <= 5) {
+            flags = 0x5E;
+        } else if (level == 6) {
+            flags = (byte)0x9C;
+        } else {
+            flags = (byte)0xDA;
+        }
+        return new byte[] {0x78, flags};
+    }
+
+    static long combineAdler32(long adler1, long adler2, long length2) {
+        final long base = 65521L;
+        long remainder = length2 % base;
+        long sum1 = adler1 & 0xFFFFL;
+        long sum2 = (remainder * sum1) % base;
+        sum1 += (adler2 & 0xFFFFL) + base - 1L;
+        sum2 += ((adler1 >>> 16) & 0xFFFFL) + ((adler2 >>> 16) & 0xFFFFL) + base - remainder;
+        if (sum1 >= base) {
+            sum1 -= base;
+        }
+        if (sum1 >= base) {
+            sum1 -= base;
+        }
+        if (sum2 >= base << 1) {
+            sum2 -= base << 1;
+        }
+        if (sum2 >= base) {
+            sum2 -= base;
+        }
+        return sum1 | (sum2 << 16);
+    }
+
+    public interface RowSource {
+        void readRow(int row, byte[] target);
+    }
+
+    public static final class Result {
+        private final List<byte[]> blocks;
+        private final long adler32;
+        private final int level;
+
+        private Result(List<byte[]> blocks, long adler32, int level) {
+            this.blocks = blocks;
+            this.adler32 = adler32;
+            this.level = level;
+        }
+
+        public List<byte[]> blocks() {
+            return blocks;
+        }
+
+        public long adler32() {
+            return adler32;
+        }
+
+        public int compressedLength() {
+            int length = 0;
+            for (byte[] block : blocks) {
+                length += block.length;
+            }
+            return length;
+        }
+
+        public byte[] toZlibStream() {
+            byte[] header = zlibHeader(level);
+            byte[] stream = new byte[header.length + compressedLength() + 4];
+            System.arraycopy(header, 0, stream, 0, header.length);
+            int position = header.length;
+            for (byte[] block : blocks) {
+                System.arraycopy(block, 0, stream, position, block.length);
+                position += block.length;
+            }
+            stream[position] = (byte)(adler32 >>> 24);
+            stream[position + 1] = (byte)(adler32 >>> 16);
+            stream[position + 2] = (byte)(adler32 >>> 8);
+            stream[position + 3] = (byte)adler32;
+            return stream;
+        }
+    }
+
+    private record Band(byte[] data, long adler, long rawLength) {
+    }
+
+    private static final class ByteSink {
+        private byte[] bytes;
+        private int size;
+
+        private ByteSink(int initialCapacity) {
+            bytes = new byte[initialCapacity];
+        }
+
+        private void write(byte[] source, int count) {
+            if (count <= 0) {
+                return;
+            }
+            if (size + count > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + count));
+            }
+            System.arraycopy(source, 0, bytes, size, count);
+            size += count;
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.panshot.spectatorcam;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+public final class ParallelPngEncoder {
+    public static final int DEFAULT_COMPRESSION_LEVEL = 6;
+    private static final byte[] PNG_SIGNATURE = {(byte)0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] IHDR = "IHDR".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IDAT = "IDAT".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IEND = "IEND".getBytes(StandardCharsets.US_ASCII);
+    private static final int FILTER_NONE = 0;
+    private static final int FILTER_SUB = 1;
+    private static final int FILTER_UP = 2;
+    private static final int FILTER_AVERAGE = 3;
+    private static final int FILTER_PAETH = 4;
+
+    private final int compressionLevel;
+    private final boolean includeAlpha;
+
+    public ParallelPngEncoder(int compressionLevel, boolean includeAlpha) {
+        if (compressionLevel < 0 || compressionLevel > 9) {
+            throw new IllegalArgumentException("compressionLevel must be between 0 and 9");
+        }
+        this.compressionLevel = compressionLevel;
+        this.includeAlpha = includeAlpha;
+    }
+
+    public byte[] encode(ByteBuffer rgba, int width, int height) throws IOException {
+        return encode(rgba, 0, width, height, width * 4);
+    }
+
+    public byte[] encode(ByteBuffer rgba, int offset, int width, int height, int rowStride) throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Image size must be positive");
+        }
+
+        Source source = new Source(rgba, offset, width, rowStride, includeAlpha);
+        ParallelDeflater.Result compressed = ParallelDeflater.compress(
+            height,
+            source.rowBytes + 1,
+            (row, target) -> filterRow(source, row, target),
+            compressionLevel
+        );
+        List<byte[]> blocks = compressed.blocks();
+
+        // Layout: signature, IHDR, IDAT(zlib header), IDAT per deflate band, IDAT(adler32), IEND.
+        int chunkCount = blocks.size() + 4;
+        ChunkWriter writer = new ChunkWriter(PNG_SIGNATURE.length + chunkCount * 12 + 13 + 2 + 4 + compressed.compressedLength());
+        writer.writeBytes(PNG_SIGNATURE);
+
+        byte[] header = new byte[13];
+        putInt(header, 0, width);
+        putInt(header, 4, height);
+        header[8] = 8;
+        header[9] = (byte)(includeAlpha ? 6 : 2);
+        writer.writeChunk(IHDR, header);
+        writer.writeChunk(IDAT, ParallelDeflater.zlibHeader(compressionLevel));
+        for (byte[] block : blocks) {
+            writer.writeChunk(IDAT, block);
+        }
+        byte[] trailer = new byte[4];
+        putInt(trailer, 0, (int)compressed.adler32());
+        writer.writeChunk(IDAT, trailer);
+        writer.writeChunk(IEND, new byte[0]);
+        return writer.toByteArray();
+    }
+
+    private void filterRow(Source source, int row, byte[] target) {
+        Scratch scratch = source.scratch.get();
+        source.readRow(row, scratch.current);
+        if (row > 0) {
+            source.readRow(row - 1, scratch.previous);
+        }
+        byte[] filtered = filterRow(scratch.current, scratch.previous, row > 0, source.bytesPerPixel, scratch.candidates);
+        System.arraycopy(filtered, 0, target, 0, target.length);
+    }
+
+    private byte[] filterRow(byte[] row, byte[] previous, boolean hasPrevious, int bpp, byte[][] candidates) {
+        int length = row.length;
+        if (compressionLevel <= 1) {
+            byte[] out = candidates[FILTER_SUB];
+            out[0] = FILTER_SUB;
+            for (int i = 0; i < length; i++) {
+                int left = i >= bpp ? row[i - bpp] : 0;
+                out[i + 1] = (byte)(row[i] - left);
+            }
+            return out;
+        }
+
+        byte[] none = candidates[FILTER_NONE];
+        byte[] sub = candidates[FILTER_SUB];
+        byte[] up = candidates[FILTER_UP];
+        byte[] average = candidates[FILTER_AVERAGE];
+        byte[] paeth = candidates[FILTER_PAETH];
+        none[0] = FILTER_NONE;
+        sub[0] = FILTER_SUB;
+        up[0] = FILTER_UP;
+        average[0] = FILTER_AVERAGE;
+        paeth[0] = FILTER_PAETH;
+        long noneCost = 0L;
+        long subCost = 0L;
+        long upCost = 0L;
+        long averageCost = 0L;
+        long paethCost = 0L;
+        for (int i = 0; i < length; i++) {
+            int value = row[i] & 0xFF;
+            int left = i >= bpp ? row[i - bpp] & 0xFF : 0;
+            int above = hasPrevious ? previous[i] & 0xFF : 0;
+            int upperLeft = hasPrevious && i >= bpp ? previous[i - bpp] & 0xFF : 0;
+
+            byte noneValue = (byte)value;
+            byte subValue = (byte)(value - left);
+            byte upValue = (byte)(value - above);
+            byte averageValue = (byte)(value - ((left + above) >>> 1));
+            byte paethValue = (byte)(value - paethPredictor(left, above, upperLeft));
+            none[i + 1] = noneValue;
+            sub[i + 1] = subValue;
+            up[i + 1] = upValue;
+            average[i + 1] = averageValue;
+            paeth[i + 1] = paethValue;
+            noneCost += Math.abs(noneValue);
+            subCost += Math.abs(subValue);
+            upCost += Math.abs(upValue);
+            averageCost += Math.abs(averageValue);
+            paethCost += Math.abs(paethValue);
+        }
+
+        // Minimum sum of absolute differences, the same heuristic libpng uses for adaptive filtering.
+        int best = FILTER_NONE;
+        long bestCost = noneCost;
+        if (subCost < bestCost) {
+            best = FILTER_SUB;
+            bestCost = subCost;
+        }
+        if (upCost < bestCost) {
+            best = FILTER_UP;
+            bestCost = upCost;
+        }
+        if (averageCost < bestCost) {
+            best = FILTER_AVERAGE;
+            bestCost = averageCost;
+        }
+        if (paethCost < bestCost) {
+            best = FILTER_PAETH;
+        }
+        return candidates[best];
+    }
+
+    private static int paethPredictor(int left, int above, int upperLeft) {
+        int estimate = left + above - upperLeft;
+        int distanceLeft = Math.abs(estimate - left);
+        int distanceAbove = Math.abs(estimate - above);
+        int distanceUpperLeft = Math.abs(estimate - upperLeft);
+        if (distanceLeft <= distanceAbove && distanceLeft <= distanceUpperLeft) {
+            return left;
+        }
+        if (distanceAbove <= distanceUpperLeft) {
+            return above;
+        }
+        return upperLeft;
+    }
+
+    private static int crcOf(byte[] type, byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(data);
+        return (int)crc.getValue();
+    }
+
+    private static void putInt(byte[] target, int offset, int value) {
+        target[offset] = (byte)(value >>> 24);
+        target[offset + 1] = (byte)(value >>> 16);
+        target[offset + 2] = (byte)(value >>> 8);
+        target[offset + 3] = (byte)value;
+    }
+
+    private static final class Source {
+        private final ByteBuffer pixels;
+        private final int offset;
+        private final int width;
+        private final int rowStride;
+        private final boolean includeAlpha;
+        private final int bytesPerPixel;
+        private final int rowBytes;
+        private final ThreadLocal<byte[]> rgbaRow;
+        private final ThreadLocal<Scratch> scratch;
+
+        private Source(ByteBuffer pixels, int offset, int width, int rowStride, boolean includeAlpha) {
+            this.pixels = pixels.duplicate();
+            this.offset = offset;
+            this.width = width;
+            this.rowStride = rowStride;
+            this.includeAlpha = includeAlpha;
+            this.bytesPerPixel = includeAlpha ? 4 : 3;
+            this.rowBytes = width * bytesPerPixel;
+            this.rgbaRow = ThreadLocal.withInitial(() -> new byte[width * 4]);
+            this.scratch = ThreadLocal.withInitial(() -> new Scratch(rowBytes));
+        }
+
+        private void readRow(int row, byte[] target) {
+            int position = offset + row * rowStride;
+            if (includeAlpha) {
+                pixels.get(position, target, 0, rowBytes);
+                return;
+            }
+
+            byte[] rgba = rgbaRow.get();
+            pixels.get(position, rgba, 0, rgba.length);
+            for (int x = 0, in = 0, out = 0; x < width; x++, in += 4, out += 3) {
+                target[out] = rgba[in];
+                target[out + 1] = rgba[in + 1];
+                target[out + 2] = rgba[in + 2];
+            }
+        }
+    }
+
+    private static final class Scratch {
+        private final byte[] current;
+        private final byte[] previous;
+        private final byte[][] candidates;
+
+        private Scratch(int rowBytes) {
+            current = new byte[rowBytes];
+            previous = new byte[rowBytes];
+            candidates = new byte[5][rowBytes + 1];
+        }
+    }
+
+    private static final class ChunkWriter {
+        private final byte[] bytes;
+        private int position;
+
+        private ChunkWriter(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        private void writeBytes(byte[] source) {
+            System.arraycopy(source, 0, bytes, position, source.length);
+            position += source.length;
+        }
+
+        private void writeChunk(byte[] type, byte[] data) {
+            putInt(bytes, position, data.length);
+            position += 4;
+            writeBytes(type);
+            writeBytes(data);
+            putInt(bytes, position, crcOf(type, data));
+            position += 4;
+        }
+
+        private byte[] toByteArray() {
+            return position == bytes.length ? bytes : Arrays.copyOf(bytes, position);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.panshot.spectatorcam;
+
+import net.minecraft.client.texture.NativeImage;
+import org.lwjgl.system.MemoryUtil;
+
+public final class PixelHash {
+    private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME_3 = 0x165667B19E3779F9L;
+    private static final long PRIME_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME_5 = 0x27D4EB2F165667C5L;
+
+    private PixelHash() {
+    }
+
+    public static long hash(NativeImage[] images, long seed) {
+        long hash = seed;
+        for (NativeImage image : images) {
+            hash = hash(image, hash);
+        }
+        return hash;
+    }
+
+    public static long hash(NativeImage image, long seed) {
+        // Dimensions are mixed in so a resize with coincidentally equal bytes never counts as unchanged.
+        long sized = seed ^ ((long)image.getWidth() << 32 | image.getHeight() & 0xFFFFFFFFL);
+        return xxHash64(NativeImagePixels.address(image), NativeImagePixels.byteSize(image), sized);
+    }
+
+    // XXH64 over native memory; speed matters more than anything cryptographic since it runs once per frame.
+    static long xxHash64(long address, long length, long seed) {
+        long end = address + length;
+        long position = address;
+        long hash;
+        if (length >= 32L) {
+            long v1 = seed + PRIME_1 + PRIME_2;
+            long v2 = seed + PRIME_2;
+            long v3 = seed;
+            long v4 = seed - PRIME_1;
+            long limit = end - 32L;
+            do {
+                v1 = round(v1, MemoryUtil.memGetLong(position));
+                v2 = round(v2, MemoryUtil.memGetLong(position + 8L));
+                v3 = round(v3, MemoryUtil.memGetLong(position + 16L));
+                v4 = round(v4, MemoryUtil.memGetLong(position + 24L));
+                position += 32L;
+            } while (position <= limit);
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = mergeRound(hash, v1);
+            hash = mergeRound(hash, v2);
+            hash = mergeRound(hash, v3);
+            hash = mergeRound(hash, v4);
+        } else {
+            hash = seed + PRIME_5;
+        }
+
+        hash += length;
+        for (; position + 8L <= end; position += 8L) {
+            hash ^= round(0L, MemoryUtil.memGetLong(position));
+            hash = Long.rotateLeft(hash, 27) * PRIME_1 + PRIME_4;
+        }
+        if (position + 4L <= end) {
+            hash ^= (MemoryUtil.memGetInt(position) & 0xFFFFFFFFL) * PRIME_1;
+            hash = Long.rotateLeft(hash, 23) * PRIME_2 + PRIME_3;
+            position += 4L;
+        }
+        for (; position < end; position++) {
+            hash ^= (MemoryUtil.memGetByte(position) & 0xFFL) * PRIME_5;
+            hash = Long.rotateLeft(hash, 11) * PRIME_1;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= PRIME_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME_3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    private static long round(long accumulator, long input) {
+        return Long.rotateLeft(accumulator + input * PRIME_2, 31) * PRIME_1;
+    }
+
+    private static long mergeRound(long hash, long value) {
+        return (hash ^ round(0L, value)) * PRIME_1 + PRIME_4;
+    }
+}
@@ -0,0 +1,176 @@
+package com.panshot.spectatorcam;
+
+import com.mojang.blaze3d.systems.RenderSystem;
+import net.minecraft.client.gl.Framebuffer;
+import net.minecraft.client.texture.NativeImage;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL21;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL32;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+public final class PixelReadbackQueue {
+    private static final long FORCED_WAIT_TIMEOUT_NANOS = 1_000_000_000L;
+
+    private final int maxSlots;
+    private final NativeImagePool imagePool;
+    private final List<Slot> slots = new ArrayList<>();
+    private final ArrayDeque<Slot> pending = new ArrayDeque<>();
+
+    public PixelReadbackQueue(int maxSlots, NativeImagePool imagePool) {
+        if (maxSlots < 1) {
+            throw new IllegalArgumentException("maxSlots must be positive");
+        }
+        this.maxSlots = maxSlots;
+        this.imagePool = imagePool;
+    }
+
+    public void submit(Framebuffer framebuffer, Consumer<NativeImage> consumer) {
+        RenderSystem.assertOnRenderThread();
+        Slot slot = acquireSlot();
+        int width = framebuffer.textureWidth;
+        int height = framebuffer.textureHeight;
+        long size = (long)width * height * 4L;
+
+        int previousReadFramebuffer = GL11.glGetInteger(GL30.GL_READ_FRAMEBUFFER_BINDING);
+        GL15.glBindBuffer(GL21.GL_PIXEL_PACK_BUFFER, slot.buffer);
+        if (slot.capacity < size) {
+            GL15.glBufferData(GL21.GL_PIXEL_PACK_BUFFER, size, GL15.GL_STREAM_READ);
+            slot.capacity = size;
+        }
+        GL30.glBindFramebuffer(GL30.GL_READ_FRAMEBUFFER, framebuffer.fbo);
+        GL11.glPixelStorei(GL11.GL_PACK_ALIGNMENT, 4);
+        GL11.glPixelStorei(GL11.GL_PACK_ROW_LENGTH, 0);
+        GL11.glPixelStorei(GL11.GL_PACK_SKIP_ROWS, 0);
+        GL11.glPixelStorei(GL11.GL_PACK_SKIP_PIXELS, 0);
+        GL11.glReadPixels(0, 0, width, height, GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, 0L);
+        GL15.glBindBuffer(GL21.GL_PIXEL_PACK_BUFFER, 0);
+        GL30.glBindFramebuffer(GL30.GL_READ_FRAMEBUFFER, previousReadFramebuffer);
+
+        slot.fence = GL32.glFenceSync(GL32.GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+        slot.width = width;
+        slot.height = height;
+        slot.consumer = consumer;
+        pending.addLast(slot);
+    }
+
+    public void poll() {
+        RenderSystem.assertOnRenderThread();
+        while (!pending.isEmpty()) {
+            Slot slot = pending.peekFirst();
+            int status = GL32.glClientWaitSync(slot.fence, 0, 0L);
+            if (status != GL32.GL_ALREADY_SIGNALED && status != GL32.GL_CONDITION_SATISFIED) {
+                if (status == GL32.GL_WAIT_FAILED) {
+                    throw new IllegalStateException("Readback fence wait failed");
+                }
+                return;
+            }
+            pending.removeFirst();
+            complete(slot);
+        }
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    public void clear() {
+        for (Slot slot : pending) {
+            releaseFence(slot);
+            slot.consumer = null;
+        }
+        pending.clear();
+    }
+
+    public void close() {
+        clear();
+        for (Slot slot : slots) {
+            GL15.glDeleteBuffers(slot.buffer);
+        }
+        slots.clear();
+    }
+
+    private Slot acquireSlot() {
+        for (Slot slot : slots) {
+            if (slot.consumer == null) {
+                return slot;
+            }
+        }
+
+        if (slots.size() < maxSlots) {
+            Slot slot = new Slot(GL15.glGenBuffers());
+            slots.add(slot);
+            return slot;
+        }
+
+        // Every slot is still in flight; finish the oldest one synchronously so capture can continue.
+        Slot oldest = pending.removeFirst();
+        int status = GL32.glClientWaitSync(oldest.fence, GL32.GL_SYNC_FLUSH_COMMANDS_BIT, FORCED_WAIT_TIMEOUT_NANOS);
+        while (status == GL32.GL_TIMEOUT_EXPIRED) {
+            status = GL32.glClientWaitSync(oldest.fence, 0, FORCED_WAIT_TIMEOUT_NANOS);
+        }
+        if (status == GL32.GL_WAIT_FAILED) {
+            releaseFence(oldest);
+            oldest.consumer = null;
+            throw new IllegalStateException("Readback fence wait failed");
+        }
+        complete(oldest);
+        return oldest;
+    }
+
+    private void complete(Slot slot) {
+        releaseFence(slot);
+        Consumer<NativeImage> consumer = slot.consumer;
+        slot.consumer = null;
+
+        int width = slot.width;
+        int height = slot.height;
+        long rowBytes = (long)width * 4L;
+        NativeImage image = imagePool.acquire(width, height);
+        GL15.glBindBuffer(GL21.GL_PIXEL_PACK_BUFFER, slot.buffer);
+        try {
+            ByteBuffer mapped = GL30.glMapBufferRange(GL21.GL_PIXEL_PACK_BUFFER, 0L, rowBytes * height, GL30.GL_MAP_READ_BIT);
+            if (mapped == null) {
+                imagePool.release(image);
+                throw new IllegalStateException("Failed to map readback buffer");
+            }
+            long source = MemoryUtil.memAddress(mapped);
+            long target = NativeImagePixels.address(image);
+            // GL rows run bottom-up; flip while copying so the image matches ScreenshotRecorder output.
+            for (int row = 0; row < height; row++) {
+                MemoryUtil.memCopy(source + (height - 1L - row) * rowBytes, target + row * rowBytes, rowBytes);
+            }
+            GL15.glUnmapBuffer(GL21.GL_PIXEL_PACK_BUFFER);
+        } finally {
+            GL15.glBindBuffer(GL21.GL_PIXEL_PACK_BUFFER, 0);
+        }
+        consumer.accept(image);
+    }
+
+    private void releaseFence(Slot slot) {
+        if (slot.fence != 0L) {
+            GL32.glDeleteSync(slot.fence);
+            slot.fence = 0L;
+        }
+    }
+
+    private static final class Slot {
+        private final int buffer;
+        private long capacity;
+        private long fence;
+        private int width;
+        private int height;
+        private Consumer<NativeImage> consumer;
+
+        private Slot(int buffer) {
+            this.buffer = buffer;
+        }
+    }
+}
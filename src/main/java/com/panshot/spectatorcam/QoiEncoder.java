@@ -0,0 +1,115 @@
+package com.panshot.spectatorcam;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public final class QoiEncoder {
+    private static final int OP_INDEX = 0x00;
+    private static final int OP_DIFF = 0x40;
+    private static final int OP_LUMA = 0x80;
+    private static final int OP_RUN = 0xC0;
+    private static final int OP_RGB = 0xFE;
+    private static final int OP_RGBA = 0xFF;
+    private static final int MAX_RUN = 62;
+    private static final int HEADER_SIZE = 14;
+    private static final byte[] END_MARKER = {0, 0, 0, 0, 0, 0, 0, 1};
+
+    private QoiEncoder() {
+    }
+
+    public static byte[] encode(ByteBuffer rgba, int width, int height, boolean includeAlpha) {
+        return encode(rgba, 0, width, height, width * 4, includeAlpha);
+    }
+
+    public static byte[] encode(ByteBuffer rgba, int offset, int width, int height, int rowStride, boolean includeAlpha) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Image size must be positive");
+        }
+
+        int channels = includeAlpha ? 4 : 3;
+        byte[] out = new byte[HEADER_SIZE + width * height * (channels + 1) + END_MARKER.length];
+        out[0] = 'q';
+        out[1] = 'o';
+        out[2] = 'i';
+        out[3] = 'f';
+        putInt(out, 4, width);
+        putInt(out, 8, height);
+        out[12] = (byte)channels;
+        out[13] = 0;
+
+        ByteBuffer pixels = rgba.duplicate();
+        byte[] row = new byte[width * 4];
+        int[] index = new int[64];
+        int position = HEADER_SIZE;
+        int run = 0;
+        int previous = 0x000000FF;
+        int lastRow = height - 1;
+        for (int y = 0; y < height; y++) {
+            pixels.get(offset + y * rowStride, row, 0, row.length);
+            for (int x = 0, column = 0; x < width; x++, column += 4) {
+                int r = row[column] & 0xFF;
+                int g = row[column + 1] & 0xFF;
+                int b = row[column + 2] & 0xFF;
+                int a = row[column + 3] & 0xFF;
+                int pixel = (r << 24) | (g << 16) | (b << 8) | a;
+
+                if (pixel == previous) {
+                    run++;
+                    if (run == MAX_RUN || (y == lastRow && x == width - 1)) {
+                        out[position++] = (byte)(OP_RUN | (run - 1));
+                        run = 0;
+                    }
+                    continue;
+                }
+
+                if (run > 0) {
+                    out[position++] = (byte)(OP_RUN | (run - 1));
+                    run = 0;
+                }
+
+                int hash = (r * 3 + g * 5 + b * 7 + a * 11) & 63;
+                if (index[hash] == pixel) {
+                    out[position++] = (byte)(OP_INDEX | hash);
+                } else {
+                    index[hash] = pixel;
+                    if (a == (previous & 0xFF)) {
+                        int dr = (byte)(r - (previous >>> 24));
+                        int dg = (byte)(g - ((previous >>> 16) & 0xFF));
+                        int db = (byte)(b - ((previous >>> 8) & 0xFF));
+                        int drg = dr - dg;
+                        int dbg = db - dg;
+                        if (dr >= -2 && dr <= 1 && dg >= -2 && dg <= 1 && db >= -2 && db <= 1) {
+                            out[position++] = (byte)(OP_DIFF | ((dr + 2) << 4) | ((dg + 2) << 2) | (db + 2));
+                        } else if (dg >= -32 && dg <= 31 && drg >= -8 && drg <= 7 && dbg >= -8 && dbg <= 7) {
+                            out[position++] = (byte)(OP_LUMA | (dg + 32));
+                            out[position++] = (byte)(((drg + 8) << 4) | (dbg + 8));
+                        } else {
+                            out[position++] = (byte)OP_RGB;
+                            out[position++] = (byte)r;
+                            out[position++] = (byte)g;
+                            out[position++] = (byte)b;
+                        }
+                    } else {
+                        out[position++] = (byte)OP_RGBA;
+                        out[position++] = (byte)r;
+                        out[position++] = (byte)g;
+                        out[position++] = (byte)b;
+                        out[position++] = (byte)a;
+                    }
+                }
+                previous = pixel;
+            }
+        }
+
+        System.arraycopy(END_MARKER, 0, out, position, END_MARKER.length);
+        position += END_MARKER.length;
+        return Arrays.copyOf(out, position);
+    }
+
+    private static void putInt(byte[] target, int offset, int value) {
+        target[offset] = (byte)(value >>> 24);
+        target[offset + 1] = (byte)(value >>> 16);
+        target[offset + 2] = (byte)(value >>> 8);
+        target[offset + 3] = (byte)value;
+    }
+}
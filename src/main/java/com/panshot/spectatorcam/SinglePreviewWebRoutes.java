@@ -0,0 +1,128 @@
+package com.panshot.spectatorcam;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.util.Objects;
+
+public final class SinglePreviewWebRoutes implements PanshotWebServer.Module {
+    private static final String DEFAULT_MOUNT_NAME = "single";
+
+    private final PanshotWebServer server;
+    private final String mountName;
+    private final MjpegBroadcaster mjpeg = new MjpegBroadcaster();
+    private volatile EventStream events;
+    private volatile StateProvider stateProvider;
+
+    public SinglePreviewWebRoutes(PanshotWebServer server) {
+        this(server, DEFAULT_MOUNT_NAME);
+    }
+
+    public SinglePreviewWebRoutes(PanshotWebServer server, String mountName) {
+        this.server = server;
+        this.mountName = mountName;
+    }
+
+    public String ensureStarted(StateProvider provider) throws IOException {
+        this.stateProvider = Objects.requireNonNull(provider, "provider");
+        return server.mount(mountName, this);
+    }
+
+    public void unmount() {
+        server.unmount(mountName, this);
+        EventStream stream = events;
+        events = null;
+        if (stream != null) {
+            stream.close();
+        }
+        mjpeg.close();
+    }
+
+    @Override
+    public void registerRoutes(PanshotWebServer.Routes routes) {
+        routes.page("/web/single_viewer.html");
+        for (FrameCodec codec : FrameCodec.values()) {
+            routes.add("live-single." + codec.extension(), exchange -> handleLiveImage(exchange, codec));
+        }
+        routes.add("live-single.mjpeg", this::handleMjpeg);
+        routes.archive(this::currentArchive);
+        events = routes.events(this::buildStateJson);
+    }
+
+    private String buildStateJson() {
+        StateProvider provider = stateProvider;
+        EncodedFrame frame = provider != null ? provider.getLatestImageFrame() : null;
+        boolean available = frame != null && frame.bytes().length > 0;
+        long lastModified = frame != null ? frame.timestamp() : 0L;
+        long version = frame != null ? frame.version() : 0L;
+        boolean running = provider != null && provider.isSingleRunning();
+        String codec = frame != null ? frame.codec().displayName() : "";
+        int width = frame != null ? frame.width() : 0;
+        int height = frame != null ? frame.height() : 0;
+
+        return "{\"running\":" + running
+            + ",\"available\":" + available
+            + ",\"lastModified\":" + lastModified
+            + ",\"version\":" + version
+            + ",\"session\":\"" + FrameResponses.session() + "\""
+            + ",\"codec\":\"" + codec + "\""
+            + ",\"width\":" + width
+            + ",\"height\":" + height
+            + ",\"deduplicated\":" + (provider != null ? provider.getDeduplicatedFrames() : 0L) + "}";
+    }
+
+    private void handleLiveImage(HttpExchange exchange, FrameCodec codec) throws IOException {
+        if (!PanshotWebServer.requireGet(exchange)) {
+            return;
+        }
+
+        StateProvider provider = stateProvider;
+        EncodedFrame frame = provider != null ? provider.getLatestImageFrame() : null;
+        if (frame == null || frame.codec() != codec || frame.bytes().length == 0) {
+            PanshotWebServer.sendNotFound(exchange);
+            return;
+        }
+
+        FrameResponses.send(exchange, frame);
+    }
+
+    private void handleMjpeg(HttpExchange exchange) throws IOException {
+        if (PanshotWebServer.requireGet(exchange)) {
+            mjpeg.serve(exchange);
+        }
+    }
+
+    public boolean hasMjpegClients() {
+        return mjpeg.hasClients();
+    }
+
+    public int mjpegClientCount() {
+        return mjpeg.clientCount();
+    }
+
+    public void publishMjpegFrame(byte[] jpeg) {
+        mjpeg.publish(jpeg);
+    }
+
+    private FrameArchive currentArchive() {
+        StateProvider provider = stateProvider;
+        return provider != null ? provider.getArchive() : null;
+    }
+
+    public void notifyStateChanged() {
+        EventStream stream = events;
+        if (stream != null) {
+            stream.notifyStateChanged();
+        }
+    }
+
+    public interface StateProvider {
+        boolean isSingleRunning();
+
+        EncodedFrame getLatestImageFrame();
+
+        FrameArchive getArchive();
+
+        long getDeduplicatedFrames();
+    }
+}
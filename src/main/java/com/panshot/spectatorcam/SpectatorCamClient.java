@@ -5,14 +5,19 @@ import com.mojang.authlib.GameProfile;
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.arguments.DoubleArgumentType;
 import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 import com.mojang.brigadier.builder.RequiredArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.mojang.brigadier.exceptions.SimpleCommandExceptionType;
 import com.panshot.spectatorcam.mixin.GameRendererAccessor;
 import com.panshot.spectatorcam.mixin.MinecraftClientAccessor;
 import com.panshot.spectatorcam.mixin.WindowAccessor;
 import net.fabricmc.api.ClientModInitializer;
 import net.fabricmc.fabric.api.client.command.v2.ClientCommandRegistrationCallback;
 import net.fabricmc.fabric.api.client.command.v2.FabricClientCommandSource;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientLifecycleEvents;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.gl.Framebuffer;
@@ -30,15 +35,24 @@ import net.minecraft.entity.Entity;
 import net.minecraft.text.ClickEvent;
 import net.minecraft.text.Text;
 import net.minecraft.util.math.Vec3d;
+import org.lwjgl.system.MemoryUtil;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.regex.Pattern;
 
 import static net.fabricmc.fabric.api.client.command.v2.ClientCommandManager.argument;
 import static net.fabricmc.fabric.api.client.command.v2.ClientCommandManager.literal;
@@ -47,20 +61,37 @@ public final class SpectatorCamClient implements ClientModInitializer {
     private static final String MESSAGE_PREFIX = "[PanShot] ";
     private static final double DEFAULT_PANORAMA_INTERVAL_SECONDS = 10.0;
     private static final double DEFAULT_SINGLE_INTERVAL_SECONDS = 1.0;
+    private static final String ARCHIVE_DIRECTORY = "panshot_archive";
+    private static final int ARCHIVE_WRITE_SLOTS = 8;
+    private static final String RECORDING_DIRECTORY = "panshot_recordings";
+    private static final int MAX_TILE_GRID = 8;
     private static final UUID CAMERA_PROFILE_ID = UUID.fromString("f0d6643c-af19-4e1e-948d-a5d2d7e2f27b");
-    private static final PanoramaWebServer PANORAMA_WEB_SERVER = new PanoramaWebServer();
-    private static final SinglePreviewWebServer SINGLE_WEB_SERVER = new SinglePreviewWebServer();
-    private static final PanoramaCaptureController PANORAMA_CONTROLLER = new PanoramaCaptureController();
-    private static final SingleCaptureController SINGLE_CONTROLLER = new SingleCaptureController();
+    private static final long DEFAULT_IMAGE_POOL_MEGABYTES = 256L;
+    private static final NativeImagePool IMAGE_POOL = new NativeImagePool(DEFAULT_IMAGE_POOL_MEGABYTES << 20);
+    private static final PanshotWebServer WEB_SERVER = new PanshotWebServer();
+    private static final PanoramaWebRoutes PANORAMA_WEB_ROUTES = new PanoramaWebRoutes(WEB_SERVER);
+    private static final SinglePreviewWebRoutes SINGLE_WEB_ROUTES = new SinglePreviewWebRoutes(WEB_SERVER);
+    private static final String DEFAULT_PANORAMA_NAME = "panorama";
+    private static final String DEFAULT_SINGLE_NAME = "single";
+    private static final String NAMED_CAMERA_MOUNT = "cameras/";
+    private static final Pattern CAMERA_NAME_PATTERN = Pattern.compile("[a-z0-9_-]{1,32}");
+    private static final Set<String> RESERVED_CAMERA_NAMES = Set.of(DEFAULT_PANORAMA_NAME, DEFAULT_SINGLE_NAME, "list", "remove");
+    private static final PanoramaCaptureController PANORAMA_CONTROLLER = new PanoramaCaptureController(DEFAULT_PANORAMA_NAME, PANORAMA_WEB_ROUTES);
+    private static final SingleCaptureController SINGLE_CONTROLLER = new SingleCaptureController(DEFAULT_SINGLE_NAME, SINGLE_WEB_ROUTES);
+    private static final Map<String, PanoramaCaptureController> NAMED_PANORAMAS = new LinkedHashMap<>();
+    private static final Map<String, SingleCaptureController> NAMED_SINGLES = new LinkedHashMap<>();
+    private static final CaptureScheduler CAPTURE_SCHEDULER = new CaptureScheduler();
     private static final SpectatorCameraController CAMERA_CONTROLLER = new SpectatorCameraController();
 
     @Override
     public void onInitializeClient() {
+        CAPTURE_SCHEDULER.register(PANORAMA_CONTROLLER);
+        CAPTURE_SCHEDULER.register(SINGLE_CONTROLLER);
         ClientTickEvents.END_CLIENT_TICK.register(client -> {
             CAMERA_CONTROLLER.tick(client);
-            PANORAMA_CONTROLLER.tick(client);
-            SINGLE_CONTROLLER.tick(client);
+            CAPTURE_SCHEDULER.tick(client);
         });
+        ClientLifecycleEvents.CLIENT_STOPPING.register(client -> IMAGE_POOL.clear());
         ClientCommandRegistrationCallback.EVENT.register((dispatcher, registryAccess) -> registerCommands(dispatcher));
     }
 
@@ -69,64 +100,57 @@ public final class SpectatorCamClient implements ClientModInitializer {
     }
 
     private static LiteralArgumentBuilder<FabricClientCommandSource> buildRootCommand(String root) {
-        RequiredArgumentBuilder<FabricClientCommandSource, Double> startPitch =
-            argument("pitch", DoubleArgumentType.doubleArg(-90.0, 90.0))
-                .executes(context -> PANORAMA_CONTROLLER.startAt(
-                    context.getSource().getClient(),
-                    DEFAULT_PANORAMA_INTERVAL_SECONDS,
-                    DoubleArgumentType.getDouble(context, "x"),
-                    DoubleArgumentType.getDouble(context, "y"),
-                    DoubleArgumentType.getDouble(context, "z"),
-                    (float)DoubleArgumentType.getDouble(context, "yaw"),
-                    (float)DoubleArgumentType.getDouble(context, "pitch")
-                ));
-        RequiredArgumentBuilder<FabricClientCommandSource, Double> startYaw =
-            argument("yaw", DoubleArgumentType.doubleArg()).then(startPitch);
-        RequiredArgumentBuilder<FabricClientCommandSource, Double> startZ =
-            argument("z", DoubleArgumentType.doubleArg()).then(startYaw);
-        RequiredArgumentBuilder<FabricClientCommandSource, Double> startY =
-            argument("y", DoubleArgumentType.doubleArg()).then(startZ);
-        RequiredArgumentBuilder<FabricClientCommandSource, Double> startX =
-            argument("x", DoubleArgumentType.doubleArg()).then(startY);
-
-        RequiredArgumentBuilder<FabricClientCommandSource, Double> everyPitch =
-            argument("pitch", DoubleArgumentType.doubleArg(-90.0, 90.0))
-                .executes(context -> PANORAMA_CONTROLLER.startAt(
-                    context.getSource().getClient(),
-                    DoubleArgumentType.getDouble(context, "intervalSeconds"),
-                    DoubleArgumentType.getDouble(context, "x"),
-                    DoubleArgumentType.getDouble(context, "y"),
-                    DoubleArgumentType.getDouble(context, "z"),
-                    (float)DoubleArgumentType.getDouble(context, "yaw"),
-                    (float)DoubleArgumentType.getDouble(context, "pitch")
-                ));
-        RequiredArgumentBuilder<FabricClientCommandSource, Double> everyYaw =
-            argument("yaw", DoubleArgumentType.doubleArg()).then(everyPitch);
-        RequiredArgumentBuilder<FabricClientCommandSource, Double> everyZ =
-            argument("z", DoubleArgumentType.doubleArg()).then(everyYaw);
-        RequiredArgumentBuilder<FabricClientCommandSource, Double> everyY =
-            argument("y", DoubleArgumentType.doubleArg()).then(everyZ);
-        RequiredArgumentBuilder<FabricClientCommandSource, Double> everyX =
-            argument("x", DoubleArgumentType.doubleArg()).then(everyY);
-        RequiredArgumentBuilder<FabricClientCommandSource, Double> everyInterval =
-            argument("intervalSeconds", DoubleArgumentType.doubleArg(0.1))
-                .executes(context -> PANORAMA_CONTROLLER.startAtPlayer(
-                    context.getSource().getClient(),
-                    DoubleArgumentType.getDouble(context, "intervalSeconds")
-                ))
-                .then(everyX);
-
-        LiteralArgumentBuilder<FabricClientCommandSource> panoramaStart = literal("start")
-            .executes(context -> PANORAMA_CONTROLLER.startAtPlayer(
-                context.getSource().getClient(),
-                DEFAULT_PANORAMA_INTERVAL_SECONDS
-            ))
-            .then(startX)
-            .then(literal("every").then(everyInterval));
+        return literal(root)
+            .executes(context -> CAMERA_CONTROLLER.toggle(context.getSource().getClient()))
+            .then(literal("where").executes(context -> CAMERA_CONTROLLER.printPosition(context.getSource().getClient())))
+            .then(literal("pool")
+                .executes(context -> imagePoolStatus(context.getSource().getClient()))
+                .then(literal("limit")
+                    .then(argument("megabytes", IntegerArgumentType.integer(0, 8192))
+                        .executes(context -> setImagePoolLimit(
+                            context.getSource().getClient(),
+                            IntegerArgumentType.getInteger(context, "megabytes")
+                        ))))
+                .then(literal("clear").executes(context -> clearImagePool(context.getSource().getClient()))))
+            .then(buildSingleCommand(context -> SINGLE_CONTROLLER, context -> SINGLE_CONTROLLER))
+            .then(buildPanoramaCommand(context -> PANORAMA_CONTROLLER, context -> PANORAMA_CONTROLLER))
+            .then(literal("camera")
+                .executes(context -> listCameras(context.getSource().getClient()))
+                .then(literal("list").executes(context -> listCameras(context.getSource().getClient())))
+                .then(argument("name", StringArgumentType.word())
+                    .then(buildPanoramaCommand(SpectatorCamClient::namedPanorama, SpectatorCamClient::createNamedPanorama))
+                    .then(buildSingleCommand(SpectatorCamClient::namedSingle, SpectatorCamClient::createNamedSingle))
+                    .then(literal("remove").executes(context -> removeCamera(
+                        context.getSource().getClient(),
+                        StringArgumentType.getString(context, "name")
+                    )))))
+            .then(literal("schedule")
+                .executes(context -> scheduleStatus(context.getSource().getClient()))
+                .then(literal("budget")
+                    .then(argument("milliseconds", DoubleArgumentType.doubleArg(1.0, 200.0))
+                        .executes(context -> setScheduleBudget(
+                            context.getSource().getClient(),
+                            DoubleArgumentType.getDouble(context, "milliseconds")
+                        )))))
+            .then(literal("tp")
+                .then(argument("x", DoubleArgumentType.doubleArg())
+                    .then(argument("y", DoubleArgumentType.doubleArg())
+                        .then(argument("z", DoubleArgumentType.doubleArg())
+                            .executes(context -> CAMERA_CONTROLLER.teleport(
+                                context.getSource().getClient(),
+                                        DoubleArgumentType.getDouble(context, "x"),
+                                        DoubleArgumentType.getDouble(context, "y"),
+                                DoubleArgumentType.getDouble(context, "z")
+                            ))))));
+    }
 
+    private static LiteralArgumentBuilder<FabricClientCommandSource> buildSingleCommand(
+        ControllerResolver<SingleCaptureController> single,
+        ControllerResolver<SingleCaptureController> singleStarter
+    ) {
         RequiredArgumentBuilder<FabricClientCommandSource, Double> singlePitch =
             argument("pitch", DoubleArgumentType.doubleArg(-90.0, 90.0))
-                .executes(context -> SINGLE_CONTROLLER.startAt(
+                .executes(context -> singleStarter.resolve(context).startAt(
                     context.getSource().getClient(),
                     DEFAULT_SINGLE_INTERVAL_SECONDS,
                     DoubleArgumentType.getDouble(context, "x"),
@@ -146,7 +170,7 @@ public final class SpectatorCamClient implements ClientModInitializer {
 
         RequiredArgumentBuilder<FabricClientCommandSource, Double> singleEveryPitch =
             argument("pitch", DoubleArgumentType.doubleArg(-90.0, 90.0))
-                .executes(context -> SINGLE_CONTROLLER.startAt(
+                .executes(context -> singleStarter.resolve(context).startAt(
                     context.getSource().getClient(),
                     DoubleArgumentType.getDouble(context, "intervalSeconds"),
                     DoubleArgumentType.getDouble(context, "x"),
@@ -165,37 +189,133 @@ public final class SpectatorCamClient implements ClientModInitializer {
             argument("x", DoubleArgumentType.doubleArg()).then(singleEveryY);
         RequiredArgumentBuilder<FabricClientCommandSource, Double> singleEveryInterval =
             argument("intervalSeconds", DoubleArgumentType.doubleArg(0.1))
-                .executes(context -> SINGLE_CONTROLLER.startAtPlayer(
+                .executes(context -> singleStarter.resolve(context).startAtPlayer(
                     context.getSource().getClient(),
                     DoubleArgumentType.getDouble(context, "intervalSeconds")
                 ))
                 .then(singleEveryX);
 
         LiteralArgumentBuilder<FabricClientCommandSource> singleResolutionCommand = literal("resolution")
-            .executes(context -> SINGLE_CONTROLLER.resolutionStatus(context.getSource().getClient()))
+            .executes(context -> single.resolve(context).resolutionStatus(context.getSource().getClient()))
             .then(argument("width", IntegerArgumentType.integer(64, 4096))
                 .then(argument("height", IntegerArgumentType.integer(64, 4096))
-                    .executes(context -> SINGLE_CONTROLLER.setResolution(
+                    .executes(context -> single.resolve(context).setResolution(
                         context.getSource().getClient(),
                         IntegerArgumentType.getInteger(context, "width"),
                         IntegerArgumentType.getInteger(context, "height")
                     ))));
 
         LiteralArgumentBuilder<FabricClientCommandSource> singleFovCommand = literal("fov")
-            .executes(context -> SINGLE_CONTROLLER.fovStatus(context.getSource().getClient()))
+            .executes(context -> single.resolve(context).fovStatus(context.getSource().getClient()))
             .then(argument("degrees", IntegerArgumentType.integer(1, 179))
-                .executes(context -> SINGLE_CONTROLLER.setFov(
+                .executes(context -> single.resolve(context).setFov(
                     context.getSource().getClient(),
                     IntegerArgumentType.getInteger(context, "degrees")
                 )));
 
         LiteralArgumentBuilder<FabricClientCommandSource> singleRenderPlayerCommand = literal("renderplayer")
-            .executes(context -> SINGLE_CONTROLLER.renderPlayerStatus(context.getSource().getClient()))
-            .then(literal("on").executes(context -> SINGLE_CONTROLLER.setRenderPlayerEnabled(context.getSource().getClient(), true)))
-            .then(literal("off").executes(context -> SINGLE_CONTROLLER.setRenderPlayerEnabled(context.getSource().getClient(), false)));
+            .executes(context -> single.resolve(context).renderPlayerStatus(context.getSource().getClient()))
+            .then(literal("on").executes(context -> single.resolve(context).setRenderPlayerEnabled(context.getSource().getClient(), true)))
+            .then(literal("off").executes(context -> single.resolve(context).setRenderPlayerEnabled(context.getSource().getClient(), false)));
+
+        LiteralArgumentBuilder<FabricClientCommandSource> singlePngCommand = literal("png")
+            .executes(context -> single.resolve(context).pngStatus(context.getSource().getClient()))
+            .then(literal("level")
+                .then(argument("level", IntegerArgumentType.integer(0, 9))
+                    .executes(context -> single.resolve(context).setPngCompressionLevel(
+                        context.getSource().getClient(),
+                        IntegerArgumentType.getInteger(context, "level")
+                    ))))
+            .then(literal("alpha")
+                .then(literal("on").executes(context -> single.resolve(context).setPngAlphaEnabled(context.getSource().getClient(), true)))
+                .then(literal("off").executes(context -> single.resolve(context).setPngAlphaEnabled(context.getSource().getClient(), false))));
+
+        LiteralArgumentBuilder<FabricClientCommandSource> singleCodecCommand = literal("codec")
+            .executes(context -> single.resolve(context).codecStatus(context.getSource().getClient()));
+        for (FrameCodec codec : FrameCodec.values()) {
+            singleCodecCommand.then(literal(codec.displayName())
+                .executes(context -> single.resolve(context).setLiveCodec(context.getSource().getClient(), codec)));
+        }
+
+        LiteralArgumentBuilder<FabricClientCommandSource> singleMjpegCommand = literal("mjpeg")
+            .executes(context -> single.resolve(context).mjpegStatus(context.getSource().getClient()))
+            .then(literal("quality")
+                .then(argument("quality", IntegerArgumentType.integer(1, 100))
+                    .executes(context -> single.resolve(context).setMjpegQuality(
+                        context.getSource().getClient(),
+                        IntegerArgumentType.getInteger(context, "quality")
+                    ))));
 
-        LiteralArgumentBuilder<FabricClientCommandSource> singleCommand = literal("single")
-            .executes(context -> SINGLE_CONTROLLER.startAtPlayer(
+        LiteralArgumentBuilder<FabricClientCommandSource> singleArchiveCommand = literal("archive")
+            .executes(context -> single.resolve(context).archiveStatus(context.getSource().getClient()))
+            .then(literal("on").executes(context -> single.resolve(context).setArchiveEnabled(context.getSource().getClient(), true)))
+            .then(literal("off").executes(context -> single.resolve(context).setArchiveEnabled(context.getSource().getClient(), false)))
+            .then(literal("retention")
+                .then(argument("megabytes", IntegerArgumentType.integer(64, 1 << 20))
+                    .then(argument("hours", DoubleArgumentType.doubleArg(1.0, 8760.0))
+                        .executes(context -> single.resolve(context).setArchiveRetention(
+                            context.getSource().getClient(),
+                            IntegerArgumentType.getInteger(context, "megabytes"),
+                            DoubleArgumentType.getDouble(context, "hours")
+                        )))));
+
+        LiteralArgumentBuilder<FabricClientCommandSource> singleRecordCommand = literal("record")
+            .executes(context -> single.resolve(context).recordStatus(context.getSource().getClient()))
+            .then(literal("on")
+                .executes(context -> single.resolve(context).startRecording(
+                    context.getSource().getClient(),
+                    TimelapseRecorder.DEFAULT_FRAMES_PER_SECOND
+                ))
+                .then(argument("fps", IntegerArgumentType.integer(1, 120))
+                    .executes(context -> single.resolve(context).startRecording(
+                        context.getSource().getClient(),
+                        IntegerArgumentType.getInteger(context, "fps")
+                    ))))
+            .then(literal("off").executes(context -> single.resolve(context).stopRecording(context.getSource().getClient())));
+
+        LiteralArgumentBuilder<FabricClientCommandSource> singleGovernorCommand = literal("governor")
+            .executes(context -> single.resolve(context).governorStatus(context.getSource().getClient()))
+            .then(literal("on").executes(context -> single.resolve(context).setGovernorEnabled(context.getSource().getClient(), true)))
+            .then(literal("off").executes(context -> single.resolve(context).setGovernorEnabled(context.getSource().getClient(), false)))
+            .then(literal("budget")
+                .then(argument("milliseconds", DoubleArgumentType.doubleArg(1.0, 100.0))
+                    .executes(context -> single.resolve(context).setGovernorBudget(
+                        context.getSource().getClient(),
+                        DoubleArgumentType.getDouble(context, "milliseconds")
+                    ))))
+            .then(literal("limits")
+                .then(argument("interval", IntegerArgumentType.integer(1, 16))
+                    .then(argument("divisor", IntegerArgumentType.integer(1, 4))
+                        .executes(context -> single.resolve(context).setGovernorLimits(
+                            context.getSource().getClient(),
+                            IntegerArgumentType.getInteger(context, "interval"),
+                            IntegerArgumentType.getInteger(context, "divisor")
+                        )))));
+
+        LiteralArgumentBuilder<FabricClientCommandSource> singlePipelinePolicy = literal("policy");
+        for (CapturePipeline.BackpressurePolicy policy : CapturePipeline.BackpressurePolicy.values()) {
+            singlePipelinePolicy.then(literal(policy.displayName())
+                .executes(context -> single.resolve(context).setPipelinePolicy(context.getSource().getClient(), policy)));
+        }
+
+        LiteralArgumentBuilder<FabricClientCommandSource> singlePipelineCommand = literal("pipeline")
+            .executes(context -> single.resolve(context).pipelineStatus(context.getSource().getClient()))
+            .then(literal("slots")
+                .then(argument("slots", IntegerArgumentType.integer(1, 16))
+                    .executes(context -> single.resolve(context).setPipelineSlots(
+                        context.getSource().getClient(),
+                        IntegerArgumentType.getInteger(context, "slots")
+                    ))))
+            .then(literal("workers")
+                .then(argument("workers", IntegerArgumentType.integer(1, 16))
+                    .executes(context -> single.resolve(context).setPipelineWorkers(
+                        context.getSource().getClient(),
+                        IntegerArgumentType.getInteger(context, "workers")
+                    ))))
+            .then(singlePipelinePolicy);
+
+        return literal("single")
+            .executes(context -> singleStarter.resolve(context).startAtPlayer(
                 context.getSource().getClient(),
                 DEFAULT_SINGLE_INTERVAL_SECONDS
             ))
@@ -204,39 +324,414 @@ public final class SpectatorCamClient implements ClientModInitializer {
             .then(singleResolutionCommand)
             .then(singleFovCommand)
             .then(singleRenderPlayerCommand)
-            .then(literal("stop").executes(context -> SINGLE_CONTROLLER.stop(context.getSource().getClient(), true)))
-            .then(literal("status").executes(context -> SINGLE_CONTROLLER.status(context.getSource().getClient())));
+            .then(singlePngCommand)
+            .then(singleCodecCommand)
+            .then(singleMjpegCommand)
+            .then(singlePipelineCommand)
+            .then(singleArchiveCommand)
+            .then(singleRecordCommand)
+            .then(singleGovernorCommand)
+            .then(literal("stop").executes(context -> single.resolve(context).stop(context.getSource().getClient(), true)))
+            .then(literal("status").executes(context -> single.resolve(context).status(context.getSource().getClient())));
+    }
 
-        return literal(root)
-            .executes(context -> CAMERA_CONTROLLER.toggle(context.getSource().getClient()))
-            .then(literal("where").executes(context -> CAMERA_CONTROLLER.printPosition(context.getSource().getClient())))
-            .then(singleCommand)
-            .then(literal("panorama")
-                .then(panoramaStart)
-                .then(literal("stop").executes(context -> PANORAMA_CONTROLLER.stop(context.getSource().getClient(), true)))
-                .then(literal("status").executes(context -> PANORAMA_CONTROLLER.status(context.getSource().getClient())))
-                .then(literal("mode")
-                    .executes(context -> PANORAMA_CONTROLLER.modeStatus(context.getSource().getClient()))
-                    .then(literal("smooth").executes(context -> PANORAMA_CONTROLLER.setPreciseCaptureMode(context.getSource().getClient(), false)))
-                    .then(literal("precise").executes(context -> PANORAMA_CONTROLLER.setPreciseCaptureMode(context.getSource().getClient(), true))))
-                .then(literal("renderplayer")
-                    .executes(context -> PANORAMA_CONTROLLER.renderPlayerStatus(context.getSource().getClient()))
-                    .then(literal("on").executes(context -> PANORAMA_CONTROLLER.setRenderPlayerEnabled(context.getSource().getClient(), true)))
-                    .then(literal("off").executes(context -> PANORAMA_CONTROLLER.setRenderPlayerEnabled(context.getSource().getClient(), false))))
-                .then(literal("export")
-                    .executes(context -> PANORAMA_CONTROLLER.exportStatus(context.getSource().getClient()))
-                    .then(literal("on").executes(context -> PANORAMA_CONTROLLER.setExportEnabled(context.getSource().getClient(), true)))
-                    .then(literal("off").executes(context -> PANORAMA_CONTROLLER.setExportEnabled(context.getSource().getClient(), false)))))
-            .then(literal("tp")
-                .then(argument("x", DoubleArgumentType.doubleArg())
-                    .then(argument("y", DoubleArgumentType.doubleArg())
-                        .then(argument("z", DoubleArgumentType.doubleArg())
-                            .executes(context -> CAMERA_CONTROLLER.teleport(
+    private static LiteralArgumentBuilder<FabricClientCommandSource> buildPanoramaCommand(
+        ControllerResolver<PanoramaCaptureController> panorama,
+        ControllerResolver<PanoramaCaptureController> panoramaStarter
+    ) {
+        RequiredArgumentBuilder<FabricClientCommandSource, Double> startPitch =
+            argument("pitch", DoubleArgumentType.doubleArg(-90.0, 90.0))
+                .executes(context -> panoramaStarter.resolve(context).startAt(
+                    context.getSource().getClient(),
+                    DEFAULT_PANORAMA_INTERVAL_SECONDS,
+                    DoubleArgumentType.getDouble(context, "x"),
+                    DoubleArgumentType.getDouble(context, "y"),
+                    DoubleArgumentType.getDouble(context, "z"),
+                    (float)DoubleArgumentType.getDouble(context, "yaw"),
+                    (float)DoubleArgumentType.getDouble(context, "pitch")
+                ));
+        RequiredArgumentBuilder<FabricClientCommandSource, Double> startYaw =
+            argument("yaw", DoubleArgumentType.doubleArg()).then(startPitch);
+        RequiredArgumentBuilder<FabricClientCommandSource, Double> startZ =
+            argument("z", DoubleArgumentType.doubleArg()).then(startYaw);
+        RequiredArgumentBuilder<FabricClientCommandSource, Double> startY =
+            argument("y", DoubleArgumentType.doubleArg()).then(startZ);
+        RequiredArgumentBuilder<FabricClientCommandSource, Double> startX =
+            argument("x", DoubleArgumentType.doubleArg()).then(startY);
+
+        RequiredArgumentBuilder<FabricClientCommandSource, Double> everyPitch =
+            argument("pitch", DoubleArgumentType.doubleArg(-90.0, 90.0))
+                .executes(context -> panoramaStarter.resolve(context).startAt(
+                    context.getSource().getClient(),
+                    DoubleArgumentType.getDouble(context, "intervalSeconds"),
+                    DoubleArgumentType.getDouble(context, "x"),
+                    DoubleArgumentType.getDouble(context, "y"),
+                    DoubleArgumentType.getDouble(context, "z"),
+                    (float)DoubleArgumentType.getDouble(context, "yaw"),
+                    (float)DoubleArgumentType.getDouble(context, "pitch")
+                ));
+        RequiredArgumentBuilder<FabricClientCommandSource, Double> everyYaw =
+            argument("yaw", DoubleArgumentType.doubleArg()).then(everyPitch);
+        RequiredArgumentBuilder<FabricClientCommandSource, Double> everyZ =
+            argument("z", DoubleArgumentType.doubleArg()).then(everyYaw);
+        RequiredArgumentBuilder<FabricClientCommandSource, Double> everyY =
+            argument("y", DoubleArgumentType.doubleArg()).then(everyZ);
+        RequiredArgumentBuilder<FabricClientCommandSource, Double> everyX =
+            argument("x", DoubleArgumentType.doubleArg()).then(everyY);
+        RequiredArgumentBuilder<FabricClientCommandSource, Double> everyInterval =
+            argument("intervalSeconds", DoubleArgumentType.doubleArg(0.1))
+                .executes(context -> panoramaStarter.resolve(context).startAtPlayer(
+                    context.getSource().getClient(),
+                    DoubleArgumentType.getDouble(context, "intervalSeconds")
+                ))
+                .then(everyX);
+
+        LiteralArgumentBuilder<FabricClientCommandSource> panoramaStart = literal("start")
+            .executes(context -> panoramaStarter.resolve(context).startAtPlayer(
+                context.getSource().getClient(),
+                DEFAULT_PANORAMA_INTERVAL_SECONDS
+            ))
+            .then(startX)
+            .then(literal("every").then(everyInterval));
+
+        LiteralArgumentBuilder<FabricClientCommandSource> panoramaArchiveCommand = literal("archive")
+            .executes(context -> panorama.resolve(context).archiveStatus(context.getSource().getClient()))
+            .then(literal("on").executes(context -> panorama.resolve(context).setArchiveEnabled(context.getSource().getClient(), true)))
+            .then(literal("off").executes(context -> panorama.resolve(context).setArchiveEnabled(context.getSource().getClient(), false)))
+            .then(literal("retention")
+                .then(argument("megabytes", IntegerArgumentType.integer(64, 1 << 20))
+                    .then(argument("hours", DoubleArgumentType.doubleArg(1.0, 8760.0))
+                        .executes(context -> panorama.resolve(context).setArchiveRetention(
+                            context.getSource().getClient(),
+                            IntegerArgumentType.getInteger(context, "megabytes"),
+                            DoubleArgumentType.getDouble(context, "hours")
+                        )))));
+
+        LiteralArgumentBuilder<FabricClientCommandSource> panoramaRecordCommand = literal("record")
+            .executes(context -> panorama.resolve(context).recordStatus(context.getSource().getClient()))
+            .then(literal("on")
+                .executes(context -> panorama.resolve(context).startRecording(
+                    context.getSource().getClient(),
+                    TimelapseRecorder.DEFAULT_FRAMES_PER_SECOND
+                ))
+                .then(argument("fps", IntegerArgumentType.integer(1, 120))
+                    .executes(context -> panorama.resolve(context).startRecording(
+                        context.getSource().getClient(),
+                        IntegerArgumentType.getInteger(context, "fps")
+                    ))))
+            .then(literal("off").executes(context -> panorama.resolve(context).stopRecording(context.getSource().getClient())));
+
+        LiteralArgumentBuilder<FabricClientCommandSource> panoramaGovernorCommand = literal("governor")
+            .executes(context -> panorama.resolve(context).governorStatus(context.getSource().getClient()))
+            .then(literal("on").executes(context -> panorama.resolve(context).setGovernorEnabled(context.getSource().getClient(), true)))
+            .then(literal("off").executes(context -> panorama.resolve(context).setGovernorEnabled(context.getSource().getClient(), false)))
+            .then(literal("budget")
+                .then(argument("milliseconds", DoubleArgumentType.doubleArg(1.0, 100.0))
+                    .executes(context -> panorama.resolve(context).setGovernorBudget(
+                        context.getSource().getClient(),
+                        DoubleArgumentType.getDouble(context, "milliseconds")
+                    ))))
+            .then(literal("limits")
+                .then(argument("interval", IntegerArgumentType.integer(1, 16))
+                    .then(argument("divisor", IntegerArgumentType.integer(1, 4))
+                        .executes(context -> panorama.resolve(context).setGovernorLimits(
+                            context.getSource().getClient(),
+                            IntegerArgumentType.getInteger(context, "interval"),
+                            IntegerArgumentType.getInteger(context, "divisor")
+                        )))));
+
+        LiteralArgumentBuilder<FabricClientCommandSource> panoramaCodecCommand = literal("codec")
+            .executes(context -> panorama.resolve(context).codecStatus(context.getSource().getClient()));
+        for (FrameCodec codec : FrameCodec.values()) {
+            panoramaCodecCommand.then(literal(codec.displayName())
+                .executes(context -> panorama.resolve(context).setLiveCodec(context.getSource().getClient(), codec)));
+        }
+
+        LiteralArgumentBuilder<FabricClientCommandSource> panoramaPipelinePolicy = literal("policy");
+        for (CapturePipeline.BackpressurePolicy policy : CapturePipeline.BackpressurePolicy.values()) {
+            panoramaPipelinePolicy.then(literal(policy.displayName())
+                .executes(context -> panorama.resolve(context).setPipelinePolicy(context.getSource().getClient(), policy)));
+        }
+
+        LiteralArgumentBuilder<FabricClientCommandSource> panoramaPipelineCommand = literal("pipeline")
+            .executes(context -> panorama.resolve(context).pipelineStatus(context.getSource().getClient()))
+            .then(literal("slots")
+                .then(argument("slots", IntegerArgumentType.integer(1, 16))
+                    .executes(context -> panorama.resolve(context).setPipelineSlots(
+                        context.getSource().getClient(),
+                        IntegerArgumentType.getInteger(context, "slots")
+                    ))))
+            .then(literal("workers")
+                .then(argument("workers", IntegerArgumentType.integer(1, 16))
+                    .executes(context -> panorama.resolve(context).setPipelineWorkers(
+                        context.getSource().getClient(),
+                        IntegerArgumentType.getInteger(context, "workers")
+                    ))))
+            .then(panoramaPipelinePolicy);
+
+        return literal("panorama")
+            .then(panoramaStart)
+            .then(literal("stop").executes(context -> panorama.resolve(context).stop(context.getSource().getClient(), true)))
+            .then(literal("status").executes(context -> panorama.resolve(context).status(context.getSource().getClient())))
+            .then(literal("mode")
+                .executes(context -> panorama.resolve(context).modeStatus(context.getSource().getClient()))
+                .then(literal("smooth").executes(context -> panorama.resolve(context).setPreciseCaptureMode(context.getSource().getClient(), false)))
+                .then(literal("precise").executes(context -> panorama.resolve(context).setPreciseCaptureMode(context.getSource().getClient(), true))))
+            .then(literal("resolution")
+                .executes(context -> panorama.resolve(context).resolutionStatus(context.getSource().getClient()))
+                .then(argument("size", IntegerArgumentType.integer(64, 4096))
+                    .executes(context -> {
+                        PanoramaCaptureController controller = panorama.resolve(context);
+                        return controller.setResolution(
+                            context.getSource().getClient(),
+                            IntegerArgumentType.getInteger(context, "size"),
+                            controller.supersample
+                        );
+                    })
+                    .then(literal("supersample")
+                        .then(argument("factor", IntegerArgumentType.integer(1, 4))
+                            .executes(context -> panorama.resolve(context).setResolution(
                                 context.getSource().getClient(),
-                                        DoubleArgumentType.getDouble(context, "x"),
-                                        DoubleArgumentType.getDouble(context, "y"),
-                                DoubleArgumentType.getDouble(context, "z")
-                            ))))));
+                                IntegerArgumentType.getInteger(context, "size"),
+                                IntegerArgumentType.getInteger(context, "factor")
+                            ))))))
+            .then(literal("renderplayer")
+                .executes(context -> panorama.resolve(context).renderPlayerStatus(context.getSource().getClient()))
+                .then(literal("on").executes(context -> panorama.resolve(context).setRenderPlayerEnabled(context.getSource().getClient(), true)))
+                .then(literal("off").executes(context -> panorama.resolve(context).setRenderPlayerEnabled(context.getSource().getClient(), false))))
+            .then(literal("tiles")
+                .executes(context -> panorama.resolve(context).tilesStatus(context.getSource().getClient()))
+                .then(literal("on").executes(context -> panorama.resolve(context).setTiledCaptureEnabled(context.getSource().getClient(), true)))
+                .then(literal("off").executes(context -> panorama.resolve(context).setTiledCaptureEnabled(context.getSource().getClient(), false)))
+                .then(literal("budget")
+                    .then(argument("milliseconds", DoubleArgumentType.doubleArg(0.5, 50.0))
+                        .executes(context -> panorama.resolve(context).setTileBudget(
+                            context.getSource().getClient(),
+                            DoubleArgumentType.getDouble(context, "milliseconds")
+                        ))))
+                .then(literal("grid")
+                    .then(argument("grid", IntegerArgumentType.integer(2, MAX_TILE_GRID))
+                        .executes(context -> panorama.resolve(context).setTileGrid(
+                            context.getSource().getClient(),
+                            IntegerArgumentType.getInteger(context, "grid")
+                        )))))
+            .then(literal("atlas")
+                .executes(context -> panorama.resolve(context).atlasStatus(context.getSource().getClient()))
+                .then(literal("on").executes(context -> panorama.resolve(context).setAtlasCaptureEnabled(context.getSource().getClient(), true)))
+                .then(literal("off").executes(context -> panorama.resolve(context).setAtlasCaptureEnabled(context.getSource().getClient(), false))))
+            .then(literal("png")
+                .executes(context -> panorama.resolve(context).pngStatus(context.getSource().getClient()))
+                .then(literal("level")
+                    .then(argument("level", IntegerArgumentType.integer(0, 9))
+                        .executes(context -> panorama.resolve(context).setPngCompressionLevel(
+                            context.getSource().getClient(),
+                            IntegerArgumentType.getInteger(context, "level")
+                        ))))
+                .then(literal("alpha")
+                    .then(literal("on").executes(context -> panorama.resolve(context).setPngAlphaEnabled(context.getSource().getClient(), true)))
+                    .then(literal("off").executes(context -> panorama.resolve(context).setPngAlphaEnabled(context.getSource().getClient(), false)))))
+            .then(panoramaCodecCommand)
+            .then(literal("faces")
+                .executes(context -> panorama.resolve(context).facesStatus(context.getSource().getClient()))
+                .then(literal("on").executes(context -> panorama.resolve(context).setLiveFacesEnabled(context.getSource().getClient(), true)))
+                .then(literal("off").executes(context -> panorama.resolve(context).setLiveFacesEnabled(context.getSource().getClient(), false)))
+                .then(literal("fullframe")
+                    .then(literal("on").executes(context -> panorama.resolve(context).setFullFrameSkipped(context.getSource().getClient(), false)))
+                    .then(literal("off").executes(context -> panorama.resolve(context).setFullFrameSkipped(context.getSource().getClient(), true)))))
+            .then(panoramaPipelineCommand)
+            .then(panoramaArchiveCommand)
+            .then(panoramaRecordCommand)
+            .then(panoramaGovernorCommand)
+            .then(literal("equirect")
+                .executes(context -> panorama.resolve(context).equirectStatus(context.getSource().getClient()))
+                .then(literal("on").executes(context -> panorama.resolve(context).setEquirectEnabled(context.getSource().getClient(), true)))
+                .then(literal("off").executes(context -> panorama.resolve(context).setEquirectEnabled(context.getSource().getClient(), false))))
+            .then(literal("export")
+                .executes(context -> panorama.resolve(context).exportStatus(context.getSource().getClient()))
+                .then(literal("on").executes(context -> panorama.resolve(context).setExportEnabled(context.getSource().getClient(), true)))
+                .then(literal("off").executes(context -> panorama.resolve(context).setExportEnabled(context.getSource().getClient(), false)))
+                .then(literal("naming")
+                    .then(literal("fixed").executes(context -> panorama.resolve(context).setExportTimestamped(context.getSource().getClient(), false)))
+                    .then(literal("timestamped").executes(context -> panorama.resolve(context).setExportTimestamped(context.getSource().getClient(), true))))
+                .then(literal("keep")
+                    .then(argument("count", IntegerArgumentType.integer(0, 100000))
+                        .executes(context -> panorama.resolve(context).setExportKeep(
+                            context.getSource().getClient(),
+                            IntegerArgumentType.getInteger(context, "count")
+                        )))));
+    }
+
+    private static PanoramaCaptureController namedPanorama(CommandContext<FabricClientCommandSource> context) throws CommandSyntaxException {
+        String name = cameraName(context);
+        PanoramaCaptureController controller = NAMED_PANORAMAS.get(name);
+        if (controller == null) {
+            throw unknownCamera(name, NAMED_SINGLES.containsKey(name) ? "single preview" : null);
+        }
+        return controller;
+    }
+
+    private static PanoramaCaptureController createNamedPanorama(CommandContext<FabricClientCommandSource> context) throws CommandSyntaxException {
+        String name = cameraName(context);
+        PanoramaCaptureController controller = NAMED_PANORAMAS.get(name);
+        if (controller == null) {
+            if (NAMED_SINGLES.containsKey(name)) {
+                throw new SimpleCommandExceptionType(Text.literal("Camera " + name + " is a single preview.")).create();
+            }
+            controller = new PanoramaCaptureController(name, new PanoramaWebRoutes(WEB_SERVER, NAMED_CAMERA_MOUNT + name));
+            NAMED_PANORAMAS.put(name, controller);
+            CAPTURE_SCHEDULER.register(controller);
+        }
+        return controller;
+    }
+
+    private static SingleCaptureController namedSingle(CommandContext<FabricClientCommandSource> context) throws CommandSyntaxException {
+        String name = cameraName(context);
+        SingleCaptureController controller = NAMED_SINGLES.get(name);
+        if (controller == null) {
+            throw unknownCamera(name, NAMED_PANORAMAS.containsKey(name) ? "panorama" : null);
+        }
+        return controller;
+    }
+
+    private static SingleCaptureController createNamedSingle(CommandContext<FabricClientCommandSource> context) throws CommandSyntaxException {
+        String name = cameraName(context);
+        SingleCaptureController controller = NAMED_SINGLES.get(name);
+        if (controller == null) {
+            if (NAMED_PANORAMAS.containsKey(name)) {
+                throw new SimpleCommandExceptionType(Text.literal("Camera " + name + " is a panorama.")).create();
+            }
+            controller = new SingleCaptureController(name, new SinglePreviewWebRoutes(WEB_SERVER, NAMED_CAMERA_MOUNT + name));
+            NAMED_SINGLES.put(name, controller);
+            CAPTURE_SCHEDULER.register(controller);
+        }
+        return controller;
+    }
+
+    private static String cameraName(CommandContext<FabricClientCommandSource> context) throws CommandSyntaxException {
+        String name = StringArgumentType.getString(context, "name");
+        // The name becomes a URL path segment and an archive directory, so only a filesystem- and URL-safe set is allowed.
+        if (!CAMERA_NAME_PATTERN.matcher(name).matches()) {
+            throw new SimpleCommandExceptionType(Text.literal(
+                "Camera names are 1-32 characters of a-z, 0-9, _ and -."
+            )).create();
+        }
+        // Archives, recordings and exports are named after the camera, so the built-in names stay reserved.
+        if (RESERVED_CAMERA_NAMES.contains(name)) {
+            throw new SimpleCommandExceptionType(Text.literal("Camera name " + name + " is reserved.")).create();
+        }
+        return name;
+    }
+
+    private static CommandSyntaxException unknownCamera(String name, String otherKind) {
+        if (otherKind != null) {
+            return new SimpleCommandExceptionType(Text.literal("Camera " + name + " is a " + otherKind + ".")).create();
+        }
+        return new SimpleCommandExceptionType(Text.literal("No camera named " + name + "; create it with start first.")).create();
+    }
+
+    private static int listCameras(MinecraftClient client) {
+        if (NAMED_PANORAMAS.isEmpty() && NAMED_SINGLES.isEmpty()) {
+            sendMessage(client, "No named cameras. Create one with /panshot camera <name> panorama start or /panshot camera <name> single.");
+            return 1;
+        }
+        for (PanoramaCaptureController controller : NAMED_PANORAMAS.values()) {
+            sendMessage(client, controller.name + ": panorama, " + (controller.running ? "running" : "stopped")
+                + ", served at /" + NAMED_CAMERA_MOUNT + controller.name + "/.");
+        }
+        for (SingleCaptureController controller : NAMED_SINGLES.values()) {
+            sendMessage(client, controller.name + ": single, " + (controller.running ? "running" : "stopped")
+                + ", served at /" + NAMED_CAMERA_MOUNT + controller.name + "/.");
+        }
+        return 1;
+    }
+
+    private static int removeCamera(MinecraftClient client, String name) {
+        PanoramaCaptureController panorama = NAMED_PANORAMAS.remove(name);
+        if (panorama != null) {
+            panorama.stop(client, false);
+            panorama.release();
+            CAPTURE_SCHEDULER.unregister(panorama);
+        }
+        SingleCaptureController single = NAMED_SINGLES.remove(name);
+        if (single != null) {
+            single.stop(client, false);
+            single.release();
+            CAPTURE_SCHEDULER.unregister(single);
+        }
+        if (panorama == null && single == null) {
+            sendMessage(client, "No camera named " + name + ".");
+            return 0;
+        }
+        sendMessage(client, "Camera " + name + " removed.");
+        return 1;
+    }
+
+    private static int scheduleStatus(MinecraftClient client) {
+        sendMessage(client, "Scheduler: " + CAPTURE_SCHEDULER.describe() + ".");
+        return 1;
+    }
+
+    private static int setScheduleBudget(MinecraftClient client, double milliseconds) {
+        CAPTURE_SCHEDULER.setBudgetMillis(milliseconds);
+        sendMessage(client, String.format(Locale.ROOT, "Capture scheduler budget set to %.1f ms per tick.", milliseconds));
+        return 1;
+    }
+
+    private static int imagePoolStatus(MinecraftClient client) {
+        sendMessage(client, "Image pool: " + IMAGE_POOL.describe() + ".");
+        return 1;
+    }
+
+    private static int setImagePoolLimit(MinecraftClient client, int megabytes) {
+        IMAGE_POOL.setMaxIdleBytes((long)megabytes << 20);
+        sendMessage(client, String.format(Locale.ROOT, "Image pool limit set to %d MB.", megabytes));
+        return 1;
+    }
+
+    private static int clearImagePool(MinecraftClient client) {
+        IMAGE_POOL.clear();
+        sendMessage(client, "Image pool cleared.");
+        return 1;
+    }
+
+    private static void releaseImagePoolIfIdle() {
+        // The pool is shared by every camera; stopping one must not throw away buffers the others are still cycling.
+        if (PANORAMA_CONTROLLER.running || SINGLE_CONTROLLER.running) {
+            return;
+        }
+        for (PanoramaCaptureController controller : NAMED_PANORAMAS.values()) {
+            if (controller.running) {
+                return;
+            }
+        }
+        for (SingleCaptureController controller : NAMED_SINGLES.values()) {
+            if (controller.running) {
+                return;
+            }
+        }
+        IMAGE_POOL.clear();
+    }
+
+    private static FrameArchive openArchive(MinecraftClient client, String name) {
+        return new FrameArchive(client.runDirectory.toPath().resolve(ARCHIVE_DIRECTORY).resolve(name));
+    }
+
+    private static Path recordingDirectory(MinecraftClient client) {
+        return client.runDirectory.toPath().resolve(RECORDING_DIRECTORY);
+    }
+
+    private interface ControllerResolver<T> {
+        T resolve(CommandContext<FabricClientCommandSource> context) throws CommandSyntaxException;
+    }
+
+    private static String cameraLabel(String name) {
+        return DEFAULT_PANORAMA_NAME.equals(name) || DEFAULT_SINGLE_NAME.equals(name) ? "" : name + ": ";
+    }
+
+    private static void sendMessage(MinecraftClient client, String message) {
+        if (client.player != null) {
+            client.player.sendMessage(Text.literal(MESSAGE_PREFIX + message), false);
+        }
     }
 
     private static final class SpectatorCameraController {
@@ -366,22 +861,34 @@ public final class SpectatorCamClient implements ClientModInitializer {
         }
     }
 
-    private static final class PanoramaCaptureController implements PanoramaWebServer.StateProvider {
+    private static final class PanoramaCaptureController implements PanoramaWebRoutes.StateProvider, CaptureScheduler.Job {
         private static final UUID PANORAMA_PROFILE_ID = UUID.fromString("4f83f6ac-6349-4f15-9f9b-4a0e5c2623ad");
         private static final UUID PANORAMA_RENDER_PLAYER_PROFILE_ID = UUID.fromString("2a89a050-bf8c-4187-b2c3-f1f008f6422f");
         private static final int PANORAMA_RENDER_PLAYER_ENTITY_ID = Integer.MIN_VALUE + 42;
-        private static final int PANORAMA_RESOLUTION = 1024;
+        private static final int DEFAULT_PANORAMA_RESOLUTION = 1024;
+        private static final int MIN_PANORAMA_RESOLUTION = 64;
+        private static final int MAX_PANORAMA_RESOLUTION = 4096;
+        private static final int MAX_PANORAMA_SUPERSAMPLE = 4;
+        private static final double DEFAULT_TILE_BUDGET_MILLIS = 4.0;
+        private static final int DEFAULT_TILE_GRID = 4;
+        private static final int FACE_READBACK_SLOTS = 12;
+        private static final int DEFAULT_PIPELINE_SLOTS = 3;
+        private static final int DEFAULT_PIPELINE_WORKERS = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() / 2));
         private static final int CLEAR_COLOR_AND_DEPTH = 0x4100;
         private static final int[] CUBEMAP_LAYOUT = {
             3, 1, 4,
             5, 0, 2
         };
-        private static final String CUBEMAP_FILE_NAME = "panorama_cubemap.png";
+        private static final String EXPORT_EXTENSION = ".png";
+        private static final int EXPORT_SLOTS = 4;
 
+        private final String name;
+        private final PanoramaWebRoutes webRoutes;
         private volatile boolean running;
         private long tickCounter;
         private long intervalTicks;
         private long nextCycleTick;
+        private long lastStepTick;
         private int completedCycles;
         private int activeFaceIndex = -1;
         private Vec3d origin = Vec3d.ZERO;
@@ -392,56 +899,148 @@ public final class SpectatorCamClient implements ClientModInitializer {
         private OtherClientPlayerEntity panoramaRenderPlayerEntity;
         private ClientWorld panoramaRenderPlayerWorld;
         private SimpleFramebuffer panoramaRenderFramebuffer;
+        private SimpleFramebuffer panoramaAtlasFramebuffer;
+        private final FramebufferDownsampler faceDownsampler = new FramebufferDownsampler();
+        private final FramebufferDownsampler atlasDownsampler = new FramebufferDownsampler();
+        private final PixelReadbackQueue faceReadback = new PixelReadbackQueue(FACE_READBACK_SLOTS, IMAGE_POOL);
         private final NativeImage[] capturedFaces = new NativeImage[6];
-        private volatile byte[] latestCubemapBytes;
-        private volatile long latestCubemapTimestamp;
+        private long captureGeneration;
+        private CapturePipeline.Reservation cycleReservation;
+        private volatile EncodedFrame latestCubemapFrame;
+        private volatile List<EncodedFrame> latestCubemapLevels = List.of();
+        private volatile EncodedFrame latestEquirectFrame;
+        private final AtomicReferenceArray<PublishedFace> latestFaceFrames = new AtomicReferenceArray<>(6);
+        private final AtomicLong faceVersionCounter = new AtomicLong();
+        private final AtomicLong deduplicatedFrames = new AtomicLong();
+        private volatile long publishedHash;
+        private volatile boolean liveFacesEnabled = true;
+        private volatile boolean skipFullFrame;
         private volatile boolean exportToDisk;
+        private final DiskExportStage exportStage;
+        private volatile boolean equirectEnabled;
+        private volatile FrameArchive archive;
+        private volatile boolean archiveEnabled;
+        private final TimelapseRecorder recorder;
+        private final ArchiveWriter archiveWriter;
+        private final CaptureGovernor governor = new CaptureGovernor(6);
+        private final CaptureViewState captureView = new CaptureViewState();
         private volatile boolean preciseCaptureMode;
         private volatile boolean renderPlayerEnabled;
-        private final ExecutorService stitchExecutor = Executors.newSingleThreadExecutor(runnable -> {
-            Thread thread = new Thread(runnable, "panshot-stitch");
-            thread.setDaemon(true);
-            return thread;
-        });
-        private final AtomicBoolean stitchInFlight = new AtomicBoolean(false);
+        private volatile boolean atlasCapture;
+        private volatile int pngCompressionLevel = ParallelPngEncoder.DEFAULT_COMPRESSION_LEVEL;
+        private volatile boolean pngAlpha = true;
+        private volatile FrameCodec liveCodec = FrameCodec.PNG;
+        private volatile int panoramaResolution = DEFAULT_PANORAMA_RESOLUTION;
+        private volatile int supersample = 1;
+        private volatile boolean tiledCapture;
+        private volatile double tileBudgetMillis = DEFAULT_TILE_BUDGET_MILLIS;
+        private volatile int tileGrid = DEFAULT_TILE_GRID;
+        private boolean cycleUsesAtlas;
+        private int cycleTileGrid = 1;
+        private int activeTileIndex;
+        private long averageTileNanos;
+        private int cycleResolution = DEFAULT_PANORAMA_RESOLUTION;
+        private int cycleSupersample = 1;
+        private final CapturePipeline<CycleImages> stitchPipeline;
+        private final LatestSlotQueue<PendingFace> faceEncodeSlots;
         private long lastSkippedStitchMessageTick = Long.MIN_VALUE;
 
-        private void tick(MinecraftClient client) {
+        private PanoramaCaptureController(String name, PanoramaWebRoutes webRoutes) {
+            this.name = name;
+            this.webRoutes = webRoutes;
+            this.exportStage = new DiskExportStage("panshot-export-" + name, EXPORT_SLOTS);
+            this.recorder = new TimelapseRecorder(name, IMAGE_POOL);
+            this.archiveWriter = new ArchiveWriter("panshot-archive-" + name, ARCHIVE_WRITE_SLOTS);
+            this.stitchPipeline = new CapturePipeline<>(
+                "panshot-stitch-" + name,
+                DEFAULT_PIPELINE_SLOTS,
+                DEFAULT_PIPELINE_WORKERS,
+                CapturePipeline.BackpressurePolicy.DROP_OLDEST,
+                cycle -> closeFaces(cycle.images())
+            );
+            this.faceEncodeSlots = new LatestSlotQueue<>(
+                "panshot-face-encode-" + name,
+                6,
+                DEFAULT_PIPELINE_WORKERS,
+                pending -> IMAGE_POOL.release(pending.image()),
+                (index, pending) -> encodeFace(pending.client(), index, pending.version(), pending.image())
+            );
+        }
+
+        @Override
+        public boolean isScheduled() {
+            return running;
+        }
+
+        @Override
+        public boolean prepare(MinecraftClient client) {
             tickCounter++;
             if (!running) {
-                return;
+                return false;
             }
 
             if (client.player == null || client.world == null) {
                 stopInternal(client, false, "Panorama capture stopped because no world is loaded.");
-                return;
+                return false;
             }
 
             if (panoramaEntity == null || panoramaWorld != client.world) {
                 ensurePanoramaEntity(client.world);
             }
 
-            if (tickCounter < nextCycleTick) {
-                return;
+            try {
+                long pollStart = System.nanoTime();
+                faceReadback.poll();
+                governor.recordReadback(System.nanoTime() - pollStart);
+            } catch (Exception exception) {
+                stopInternal(client, false, null);
+                send(client, "Panorama capture failed: " + exception.getMessage());
+                return false;
             }
+            return tickCounter >= nextCycleTick && (activeFaceIndex >= 0 || stitchPipeline.hasCapacity());
+        }
+
+        @Override
+        public long ticksUntilDue() {
+            // A cycle spread over several ticks is due again right after each step, not since the cycle started.
+            return activeFaceIndex >= 0 ? lastStepTick + 1 - tickCounter : nextCycleTick - tickCounter;
+        }
 
+        @Override
+        public void capture(MinecraftClient client) {
+            lastStepTick = tickCounter;
             try {
                 if (preciseCaptureMode) {
-                    capturePanoramaCycle(client);
+                    if (!reserveCycle()) {
+                        return;
+                    }
+                    beginCycle();
+                    long renderStart = System.nanoTime();
+                    capturePanoramaFaces(client, 0, 6);
+                    governor.recordRender(System.nanoTime() - renderStart, 6, false);
                     completedCycles++;
-                    nextCycleTick = tickCounter + intervalTicks;
-                    submitStitchJob(client, detachCapturedFaces(), completedCycles);
+                    nextCycleTick = tickCounter + governor.intervalTicks(intervalTicks, stitchPipeline.workers());
                 } else {
                     if (activeFaceIndex < 0) {
+                        if (!reserveCycle()) {
+                            return;
+                        }
                         activeFaceIndex = 0;
+                        beginCycle();
+                    }
+                    if (cycleTileGrid > 1) {
+                        capturePanoramaTiles(client);
+                    } else {
+                        int faceCount = Math.min(governor.stepsPerTick(), 6 - activeFaceIndex);
+                        long renderStart = System.nanoTime();
+                        capturePanoramaFaces(client, activeFaceIndex, faceCount);
+                        governor.recordRender(System.nanoTime() - renderStart, faceCount, true);
+                        activeFaceIndex += faceCount;
                     }
-                    capturePanoramaFace(client, activeFaceIndex);
-                    activeFaceIndex++;
                     if (activeFaceIndex >= 6) {
                         activeFaceIndex = -1;
                         completedCycles++;
-                        nextCycleTick = tickCounter + intervalTicks;
-                        submitStitchJob(client, detachCapturedFaces(), completedCycles);
+                        nextCycleTick = tickCounter + governor.intervalTicks(intervalTicks, stitchPipeline.workers());
                     }
                 }
             } catch (Exception exception) {
@@ -466,22 +1065,24 @@ public final class SpectatorCamClient implements ClientModInitializer {
                 return 0;
             }
 
-            SINGLE_CONTROLLER.stop(client, false);
             origin = new Vec3d(x, y, z);
             baseYaw = yaw;
             basePitch = clampPitch(pitch);
             intervalTicks = Math.max(1L, Math.round(intervalSeconds * 20.0));
             running = true;
             completedCycles = 0;
+            governor.reset();
             activeFaceIndex = -1;
+            captureGeneration++;
             clearCapturedFaces();
             nextCycleTick = tickCounter;
             ensurePanoramaEntity(client.world);
             ensureFramebuffers(client);
 
             try {
-                String viewerUrl = PANORAMA_WEB_SERVER.ensureStarted(this);
+                String viewerUrl = webRoutes.ensureStarted(this);
                 sendViewerLink(client, viewerUrl);
+                webRoutes.notifyStateChanged();
             } catch (IOException exception) {
                 send(client, "Panorama viewer failed to start: " + exception.getMessage());
             }
@@ -530,32 +1131,60 @@ public final class SpectatorCamClient implements ClientModInitializer {
                     basePitch,
                     preciseCaptureMode ? "precise" : "smooth"
                 ));
+                send(client, "Governor: " + governor.describe() + ".");
+                send(client, "Culling: " + captureView.describe() + ".");
                 return 1;
             }
 
             double seconds = Math.max(0.0, (nextCycleTick - tickCounter) / 20.0);
             send(client, String.format(
                 Locale.ROOT,
-                "Running: next cycle in %.2f seconds from %.3f %.3f %.3f (yaw %.1f, pitch %.1f, mode %s).",
+                "Running: next cycle in %.2f seconds from %.3f %.3f %.3f (yaw %.1f, pitch %.1f, mode %s, deduplicated %d).",
                 seconds,
                 origin.x,
                 origin.y,
                 origin.z,
                 baseYaw,
                 basePitch,
-                preciseCaptureMode ? "precise" : "smooth"
+                preciseCaptureMode ? "precise" : "smooth",
+                deduplicatedFrames.get()
             ));
+            send(client, "Governor: " + governor.describe() + ".");
+            send(client, "Culling: " + captureView.describe() + ".");
             return 1;
         }
 
-        private void capturePanoramaFace(MinecraftClient client, int index) {
+        private void capturePanoramaTiles(MinecraftClient client) {
+            long tickStart = System.nanoTime();
+            long budgetNanos = Math.round(tileBudgetMillis * 1_000_000.0);
+            int tileCount = cycleTileGrid * cycleTileGrid;
             try (RenderContext context = beginPanoramaRender(client)) {
-                renderPanoramaFace(client, index);
+                // At least one tile per tick so a tiny budget still makes progress; more only while the next one is predicted to fit.
+                do {
+                    long tileStart = System.nanoTime();
+                    renderPanoramaTile(client, activeFaceIndex, activeTileIndex);
+                    long tileNanos = System.nanoTime() - tileStart;
+                    averageTileNanos = averageTileNanos == 0L ? tileNanos : averageTileNanos + (tileNanos - averageTileNanos) / 4L;
+                    if (++activeTileIndex == tileCount) {
+                        submitFaceReadback(client, activeFaceIndex);
+                        activeTileIndex = 0;
+                        activeFaceIndex++;
+                    }
+                } while (activeFaceIndex < 6 && System.nanoTime() - tickStart + averageTileNanos <= budgetNanos);
+            }
+            governor.recordRender(System.nanoTime() - tickStart, 1, false);
+        }
+
+        private void capturePanoramaFaces(MinecraftClient client, int firstIndex, int count) {
+            try (RenderContext context = beginPanoramaRender(client)) {
+                for (int index = firstIndex; index < firstIndex + count; index++) {
+                    renderPanoramaFace(client, index);
+                }
             }
         }
 
         private int exportStatus(MinecraftClient client) {
-            send(client, "Panorama export is " + (exportToDisk ? "on" : "off") + ".");
+            send(client, "Panorama export is " + (exportToDisk ? "on" : "off") + " (" + exportStage.describe() + ").");
             return 1;
         }
 
@@ -565,16 +1194,365 @@ public final class SpectatorCamClient implements ClientModInitializer {
             return 1;
         }
 
+        private int setExportTimestamped(MinecraftClient client, boolean timestamped) {
+            exportStage.setTimestamped(timestamped);
+            send(client, "Panorama exports now use " + (timestamped ? "timestamped" : "fixed") + " file names.");
+            return 1;
+        }
+
+        private int setExportKeep(MinecraftClient client, int count) {
+            exportStage.setKeepFiles(count);
+            if (count == 0) {
+                send(client, "Panorama exports are no longer pruned.");
+            } else {
+                send(client, String.format(Locale.ROOT, "Panorama exports keep the newest %d timestamped files.", count));
+            }
+            return 1;
+        }
+
+        private int equirectStatus(MinecraftClient client) {
+            send(client, "Panorama equirect output is " + (equirectEnabled ? "on" : "off") + ".");
+            return 1;
+        }
+
+        private int setEquirectEnabled(MinecraftClient client, boolean enabled) {
+            equirectEnabled = enabled;
+            if (!enabled) {
+                latestEquirectFrame = null;
+            }
+            webRoutes.notifyStateChanged();
+            send(client, "Panorama equirect output " + (enabled ? "enabled" : "disabled") + ".");
+            return 1;
+        }
+
+        private int archiveStatus(MinecraftClient client) {
+            FrameArchive current = archive;
+            send(client, "Panorama archive is " + (archiveEnabled ? "on" : "off")
+                + (current != null ? " (" + current.describe() + "; " + archiveWriter.describe() + ")" : "") + ".");
+            return 1;
+        }
+
+        private int setArchiveEnabled(MinecraftClient client, boolean enabled) {
+            ensureArchive(client);
+            archiveEnabled = enabled;
+            send(client, "Panorama archive " + (enabled ? "enabled" : "disabled") + ".");
+            return 1;
+        }
+
+        private int setArchiveRetention(MinecraftClient client, int megabytes, double hours) {
+            try {
+                ensureArchive(client).setRetention((long)megabytes << 20, Math.round(hours * 3_600_000.0));
+            } catch (IOException exception) {
+                send(client, "Panorama archive retention failed: " + exception.getMessage());
+                return 0;
+            }
+            send(client, String.format(Locale.ROOT, "Panorama archive keeps %d MB for %.1f hours.", megabytes, hours));
+            return 1;
+        }
+
+        private FrameArchive ensureArchive(MinecraftClient client) {
+            if (archive == null) {
+                archive = openArchive(client, name);
+            }
+            return archive;
+        }
+
+        private int recordStatus(MinecraftClient client) {
+            send(client, "Panorama recording is " + recorder.describe() + ".");
+            return 1;
+        }
+
+        private int startRecording(MinecraftClient client, int framesPerSecond) {
+            recorder.start(
+                recordingDirectory(client),
+                framesPerSecond,
+                TimelapseRecorder.DEFAULT_QUALITY,
+                message -> client.execute(() -> send(client, message))
+            );
+            send(client, String.format(Locale.ROOT, "Panorama recording started at %d fps.", framesPerSecond));
+            return 1;
+        }
+
+        private int stopRecording(MinecraftClient client) {
+            if (!recorder.isRecording()) {
+                send(client, "Panorama recording is not running.");
+                return 0;
+            }
+            recorder.stop();
+            send(client, "Panorama recording stopped; finalizing video.");
+            return 1;
+        }
+
         private int modeStatus(MinecraftClient client) {
             send(client, "Panorama mode is " + (preciseCaptureMode ? "precise" : "smooth") + ".");
             return 1;
         }
 
-        private int setPreciseCaptureMode(MinecraftClient client, boolean precise) {
-            preciseCaptureMode = precise;
+        private int setPreciseCaptureMode(MinecraftClient client, boolean precise) {
+            preciseCaptureMode = precise;
+            activeFaceIndex = -1;
+            captureGeneration++;
+            clearCapturedFaces();
+            send(client, "Panorama mode set to " + (precise ? "precise" : "smooth") + ".");
+            return 1;
+        }
+
+        private int pngStatus(MinecraftClient client) {
+            send(client, String.format(
+                Locale.ROOT,
+                "Panorama PNG level is %d, alpha %s.",
+                pngCompressionLevel,
+                pngAlpha ? "on" : "off"
+            ));
+            return 1;
+        }
+
+        private int setPngCompressionLevel(MinecraftClient client, int level) {
+            pngCompressionLevel = Math.max(0, Math.min(9, level));
+            send(client, String.format(Locale.ROOT, "Panorama PNG level set to %d.", pngCompressionLevel));
+            return 1;
+        }
+
+        private int setPngAlphaEnabled(MinecraftClient client, boolean enabled) {
+            pngAlpha = enabled;
+            send(client, "Panorama PNG alpha " + (enabled ? "enabled" : "disabled") + ".");
+            return 1;
+        }
+
+        private int codecStatus(MinecraftClient client) {
+            send(client, "Panorama live codec is " + liveCodec.displayName() + ".");
+            return 1;
+        }
+
+        private int setLiveCodec(MinecraftClient client, FrameCodec codec) {
+            liveCodec = codec;
+            send(client, "Panorama live codec set to " + codec.displayName() + ".");
+            return 1;
+        }
+
+        private int governorStatus(MinecraftClient client) {
+            send(client, "Panorama governor is " + governor.describe() + ".");
+            return 1;
+        }
+
+        private int setGovernorEnabled(MinecraftClient client, boolean enabled) {
+            governor.configure(enabled, governor.budgetMillis(), governor.maxIntervalFactor(), governor.maxResolutionDivisor());
+            governor.reset();
+            send(client, "Panorama governor " + (enabled ? "enabled" : "disabled") + ".");
+            return 1;
+        }
+
+        private int setGovernorBudget(MinecraftClient client, double milliseconds) {
+            governor.configure(governor.isEnabled(), milliseconds, governor.maxIntervalFactor(), governor.maxResolutionDivisor());
+            send(client, String.format(Locale.ROOT, "Panorama governor budget set to %.1f ms per tick.", milliseconds));
+            return 1;
+        }
+
+        private int setGovernorLimits(MinecraftClient client, int intervalFactor, int divisor) {
+            if (Integer.bitCount(divisor) != 1) {
+                send(client, "Panorama governor resolution divisor must be 1, 2 or 4.");
+                return 0;
+            }
+            governor.configure(governor.isEnabled(), governor.budgetMillis(), intervalFactor, divisor);
+            send(client, String.format(
+                Locale.ROOT,
+                "Panorama governor may stretch the interval up to %dx and divide the resolution by up to %d.",
+                intervalFactor,
+                divisor
+            ));
+            return 1;
+        }
+
+        private int pipelineStatus(MinecraftClient client) {
+            send(client, "Panorama pipeline: " + stitchPipeline.describe() + ".");
+            return 1;
+        }
+
+        private int setPipelineSlots(MinecraftClient client, int slots) {
+            stitchPipeline.configure(slots, stitchPipeline.workers(), stitchPipeline.policy());
+            send(client, String.format(Locale.ROOT, "Panorama pipeline slots set to %d.", slots));
+            return 1;
+        }
+
+        private int setPipelineWorkers(MinecraftClient client, int workers) {
+            stitchPipeline.configure(stitchPipeline.slots(), workers, stitchPipeline.policy());
+            send(client, String.format(Locale.ROOT, "Panorama pipeline workers set to %d.", workers));
+            return 1;
+        }
+
+        private int setPipelinePolicy(MinecraftClient client, CapturePipeline.BackpressurePolicy policy) {
+            stitchPipeline.configure(stitchPipeline.slots(), stitchPipeline.workers(), policy);
+            send(client, "Panorama pipeline policy set to " + policy.displayName() + ".");
+            return 1;
+        }
+
+        private int facesStatus(MinecraftClient client) {
+            send(client, "Panorama live faces are " + (liveFacesEnabled ? "on" : "off")
+                + ", full cubemap " + (skipFullFrame ? "skipped while faces are on" : "always encoded") + ".");
+            return 1;
+        }
+
+        private int setFullFrameSkipped(MinecraftClient client, boolean skipped) {
+            skipFullFrame = skipped;
+            send(client, skipped
+                ? "Panorama full cubemap is now skipped while live faces are on; live-cubemap serves nothing until it is needed."
+                : "Panorama full cubemap is encoded every cycle.");
+            return 1;
+        }
+
+        private int setLiveFacesEnabled(MinecraftClient client, boolean enabled) {
+            liveFacesEnabled = enabled;
+            if (!enabled) {
+                for (int i = 0; i < latestFaceFrames.length(); i++) {
+                    latestFaceFrames.set(i, null);
+                }
+            }
+            send(client, "Panorama live faces " + (enabled ? "enabled" : "disabled") + ".");
+            return 1;
+        }
+
+        private int tilesStatus(MinecraftClient client) {
+            send(client, String.format(
+                Locale.ROOT,
+                "Panorama tiled capture is %s (%dx%d tiles per face, %.1f ms per tick, last tile %.2f ms).",
+                tiledCapture ? "on" : "off",
+                tileGrid,
+                tileGrid,
+                tileBudgetMillis,
+                averageTileNanos / 1_000_000.0
+            ));
+            return 1;
+        }
+
+        private int setTiledCaptureEnabled(MinecraftClient client, boolean enabled) {
+            tiledCapture = enabled;
+            activeFaceIndex = -1;
+            captureGeneration++;
+            clearCapturedFaces();
+            if (enabled && (preciseCaptureMode || atlasCapture)) {
+                send(client, "Panorama tiled capture enabled (only used in smooth mode with atlas capture off).");
+            } else {
+                send(client, "Panorama tiled capture " + (enabled ? "enabled" : "disabled") + ".");
+            }
+            return 1;
+        }
+
+        private int setTileBudget(MinecraftClient client, double milliseconds) {
+            tileBudgetMillis = milliseconds;
+            send(client, String.format(Locale.ROOT, "Panorama tiles now render within %.1f ms per tick.", milliseconds));
+            return 1;
+        }
+
+        private int setTileGrid(MinecraftClient client, int grid) {
+            if (Integer.bitCount(grid) != 1) {
+                send(client, "Panorama tile grid must be 2, 4 or 8.");
+                return 0;
+            }
+            tileGrid = grid;
+            activeFaceIndex = -1;
+            captureGeneration++;
+            clearCapturedFaces();
+            send(client, String.format(Locale.ROOT, "Panorama faces now split into %dx%d tiles.", grid, grid));
+            return 1;
+        }
+
+        private int atlasStatus(MinecraftClient client) {
+            send(client, "Panorama atlas capture is " + (atlasCapture ? "on" : "off") + ".");
+            return 1;
+        }
+
+        private int setAtlasCaptureEnabled(MinecraftClient client, boolean enabled) {
+            atlasCapture = enabled;
+            activeFaceIndex = -1;
+            captureGeneration++;
+            clearCapturedFaces();
+            if (enabled && MinecraftClient.isFabulousGraphicsOrBetter()) {
+                send(client, "Panorama atlas capture enabled (inactive while Fabulous graphics is on).");
+            } else {
+                send(client, "Panorama atlas capture " + (enabled ? "enabled" : "disabled") + ".");
+            }
+            return 1;
+        }
+
+        private boolean shouldCaptureIntoAtlas() {
+            // Fabulous transparency post passes reset the viewport to the full target, which breaks per-face slots.
+            return atlasCapture
+                && !MinecraftClient.isFabulousGraphicsOrBetter()
+                && cycleRenderSize() * 3 <= RenderSystem.maxSupportedTextureSize();
+        }
+
+        private boolean reserveCycle() {
+            // The stitch slot is claimed before any face is rendered, so BLOCK can never end up with more cycles than slots.
+            cycleReservation = stitchPipeline.tryReserve();
+            return cycleReservation != null;
+        }
+
+        private void beginCycle() {
+            // Smooth mode spreads a cycle over several ticks, so its size is fixed up front.
+            cycleResolution = governor.scaledSize(panoramaResolution, MIN_PANORAMA_RESOLUTION);
+            cycleSupersample = supersample;
+            cycleUsesAtlas = shouldCaptureIntoAtlas();
+            cycleTileGrid = cycleTileGrid();
+            activeTileIndex = 0;
+        }
+
+        private int cycleTileGrid() {
+            // Tiles are viewport slots like the atlas, so the same Fabulous limitation applies.
+            if (!tiledCapture || preciseCaptureMode || cycleUsesAtlas || MinecraftClient.isFabulousGraphicsOrBetter()) {
+                return 1;
+            }
+            int renderSize = cycleRenderSize();
+            for (int grid = tileGrid; grid > 1; grid /= 2) {
+                if (renderSize % grid == 0) {
+                    return grid;
+                }
+            }
+            return 1;
+        }
+
+        private int cycleRenderSize() {
+            return cycleResolution * cycleSupersample;
+        }
+
+        private int resolutionStatus(MinecraftClient client) {
+            send(client, String.format(
+                Locale.ROOT,
+                "Panorama resolution is %d per face, supersample %dx.",
+                panoramaResolution,
+                supersample
+            ));
+            return 1;
+        }
+
+        private int setResolution(MinecraftClient client, int resolution, int factor) {
+            int clampedResolution = Math.max(MIN_PANORAMA_RESOLUTION, Math.min(MAX_PANORAMA_RESOLUTION, resolution));
+            int clampedFactor = Math.max(1, Math.min(MAX_PANORAMA_SUPERSAMPLE, factor));
+            if (Integer.bitCount(clampedFactor) != 1) {
+                // Only power-of-two factors resolve in exact halvings that never blend across atlas face borders.
+                send(client, "Panorama supersample factor must be 1, 2 or 4.");
+                return 0;
+            }
+            if (clampedResolution * clampedFactor > RenderSystem.maxSupportedTextureSize()) {
+                send(client, String.format(
+                    Locale.ROOT,
+                    "Panorama render size %d exceeds the GPU limit of %d.",
+                    clampedResolution * clampedFactor,
+                    RenderSystem.maxSupportedTextureSize()
+                ));
+                return 0;
+            }
+
+            panoramaResolution = clampedResolution;
+            supersample = clampedFactor;
             activeFaceIndex = -1;
+            captureGeneration++;
             clearCapturedFaces();
-            send(client, "Panorama mode set to " + (precise ? "precise" : "smooth") + ".");
+            send(client, String.format(
+                Locale.ROOT,
+                "Panorama resolution set to %d per face, supersample %dx.",
+                clampedResolution,
+                clampedFactor
+            ));
             return 1;
         }
 
@@ -589,14 +1567,6 @@ public final class SpectatorCamClient implements ClientModInitializer {
             return 1;
         }
 
-        private void capturePanoramaCycle(MinecraftClient client) {
-            try (RenderContext context = beginPanoramaRender(client)) {
-                for (int index = 0; index < 6; index++) {
-                    renderPanoramaFace(client, index);
-                }
-            }
-        }
-
         private RenderContext beginPanoramaRender(MinecraftClient client) {
             ensureFramebuffers(client);
 
@@ -615,20 +1585,22 @@ public final class SpectatorCamClient implements ClientModInitializer {
             ClientWorld renderPlayerWorld = null;
             boolean renderPlayerAdded = false;
 
-            windowAccessor.spectatorcam$setWidth(PANORAMA_RESOLUTION);
-            windowAccessor.spectatorcam$setHeight(PANORAMA_RESOLUTION);
-            window.setFramebufferWidth(PANORAMA_RESOLUTION);
-            window.setFramebufferHeight(PANORAMA_RESOLUTION);
+            int renderSize = cycleRenderSize();
+            windowAccessor.spectatorcam$setWidth(renderSize);
+            windowAccessor.spectatorcam$setHeight(renderSize);
+            window.setFramebufferWidth(renderSize);
+            window.setFramebufferHeight(renderSize);
 
-            clientAccessor.spectatorcam$setFramebuffer(panoramaRenderFramebuffer);
-            panoramaRenderFramebuffer.beginWrite(true);
-            RenderSystem.viewport(0, 0, PANORAMA_RESOLUTION, PANORAMA_RESOLUTION);
+            Framebuffer captureFramebuffer = cycleUsesAtlas ? panoramaAtlasFramebuffer : panoramaRenderFramebuffer;
+            clientAccessor.spectatorcam$setFramebuffer(captureFramebuffer);
+            captureFramebuffer.beginWrite(true);
+            RenderSystem.viewport(0, 0, renderSize, renderSize);
 
             client.setCameraEntity(panoramaEntity);
             client.options.setPerspective(Perspective.FIRST_PERSON);
             client.options.getFov().setValue(90);
             client.gameRenderer.setRenderingPanorama(true);
-            client.worldRenderer.scheduleTerrainUpdate();
+            captureView.enter(client.worldRenderer, origin);
             if (renderPlayerEnabled && client.player != null && client.world != null) {
                 OtherClientPlayerEntity renderPlayer = ensureRenderPlayerEntity(client.world, client.player);
                 syncRenderPlayerEntity(client.player, renderPlayer);
@@ -658,15 +1630,111 @@ public final class SpectatorCamClient implements ClientModInitializer {
 
         private void renderPanoramaFace(MinecraftClient client, int index) {
             positionPanoramaEntity(yawForIndex(index), pitchForIndex(index));
+            long generation = captureGeneration;
+            int cycleNumber = completedCycles + 1;
+            CapturePipeline.Reservation reservation = cycleReservation;
+            if (cycleUsesAtlas) {
+                renderPanoramaFaceIntoAtlas(client, index);
+                if (index == capturedFaces.length - 1) {
+                    // Supersampled renders are averaged down by the GPU, so readback and encoding only see the output size.
+                    Framebuffer resolved = atlasDownsampler.resolve(panoramaAtlasFramebuffer, cycleResolution * 3, cycleResolution * 2);
+                    faceReadback.submit(resolved, atlas -> acceptCapturedAtlas(client, generation, cycleNumber, reservation, atlas));
+                }
+                return;
+            }
+
+            int renderSize = cycleRenderSize();
+            RenderSystem.viewport(0, 0, renderSize, renderSize);
             RenderSystem.clearColor(0.0f, 0.0f, 0.0f, 0.0f);
             RenderSystem.clear(CLEAR_COLOR_AND_DEPTH, MinecraftClient.IS_SYSTEM_MAC);
             client.gameRenderer.renderWorld(RenderTickCounter.ONE);
+            submitFaceReadback(client, index);
+        }
+
+        private void renderPanoramaTile(MinecraftClient client, int index, int tile) {
+            positionPanoramaEntity(yawForIndex(index), pitchForIndex(index));
+            int grid = cycleTileGrid;
+            int tileSize = cycleRenderSize() / grid;
+            int column = tile % grid;
+            int row = tile / grid;
+            int x = column * tileSize;
+            // Tile row 0 is the top of the face, i.e. the highest slot in GL's bottom-up coordinates.
+            int y = (grid - 1 - row) * tileSize;
+
+            // The projection zoom narrows the frustum to this tile, so culling skips everything outside it.
+            GameRendererAccessor gameRendererAccessor = (GameRendererAccessor)client.gameRenderer;
+            float previousZoom = gameRendererAccessor.spectatorcam$getZoom();
+            float previousZoomX = gameRendererAccessor.spectatorcam$getZoomX();
+            float previousZoomY = gameRendererAccessor.spectatorcam$getZoomY();
+            gameRendererAccessor.spectatorcam$setZoom(grid);
+            gameRendererAccessor.spectatorcam$setZoomX(grid - 1 - 2 * column);
+            gameRendererAccessor.spectatorcam$setZoomY(grid - 1 - 2 * row);
+            captureView.invalidateFrustum(client.worldRenderer);
+            RenderSystem.viewport(x, y, tileSize, tileSize);
+            RenderSystem.enableScissor(x, y, tileSize, tileSize);
+            try {
+                RenderSystem.clearColor(0.0f, 0.0f, 0.0f, 0.0f);
+                RenderSystem.clear(CLEAR_COLOR_AND_DEPTH, MinecraftClient.IS_SYSTEM_MAC);
+                client.gameRenderer.renderWorld(RenderTickCounter.ONE);
+            } finally {
+                RenderSystem.disableScissor();
+                gameRendererAccessor.spectatorcam$setZoom(previousZoom);
+                gameRendererAccessor.spectatorcam$setZoomX(previousZoomX);
+                gameRendererAccessor.spectatorcam$setZoomY(previousZoomY);
+            }
+        }
+
+        private void submitFaceReadback(MinecraftClient client, int index) {
+            long generation = captureGeneration;
+            int cycleNumber = completedCycles + 1;
+            CapturePipeline.Reservation reservation = cycleReservation;
+            Framebuffer resolved = faceDownsampler.resolve(panoramaRenderFramebuffer, cycleResolution, cycleResolution);
+            faceReadback.submit(resolved, face -> acceptCapturedFace(client, generation, cycleNumber, reservation, index, face));
+        }
+
+        private void renderPanoramaFaceIntoAtlas(MinecraftClient client, int index) {
+            int slot = atlasSlotForFace(index);
+            int renderSize = cycleRenderSize();
+            int x = (slot % 3) * renderSize;
+            // Layout row 0 is the top of the stitched image, i.e. the upper half in GL's bottom-up coordinates.
+            int y = (1 - slot / 3) * renderSize;
+            RenderSystem.viewport(x, y, renderSize, renderSize);
+            RenderSystem.enableScissor(x, y, renderSize, renderSize);
+            try {
+                RenderSystem.clearColor(0.0f, 0.0f, 0.0f, 0.0f);
+                RenderSystem.clear(CLEAR_COLOR_AND_DEPTH, MinecraftClient.IS_SYSTEM_MAC);
+                client.gameRenderer.renderWorld(RenderTickCounter.ONE);
+            } finally {
+                RenderSystem.disableScissor();
+            }
+        }
+
+        private void acceptCapturedAtlas(MinecraftClient client, long generation, int cycleNumber, CapturePipeline.Reservation reservation, NativeImage atlas) {
+            if (generation != captureGeneration) {
+                IMAGE_POOL.release(atlas);
+                stitchPipeline.cancelReservation(reservation);
+                return;
+            }
+            submitStitchJob(client, new CycleImages(new NativeImage[] {atlas}, true), cycleNumber, reservation);
+        }
+
+        private void acceptCapturedFace(MinecraftClient client, long generation, int cycleNumber, CapturePipeline.Reservation reservation, int index, NativeImage face) {
+            if (generation != captureGeneration) {
+                IMAGE_POOL.release(face);
+                stitchPipeline.cancelReservation(reservation);
+                return;
+            }
 
-            NativeImage face = ScreenshotRecorder.takeScreenshot(panoramaRenderFramebuffer);
             if (capturedFaces[index] != null) {
-                capturedFaces[index].close();
+                IMAGE_POOL.release(capturedFaces[index]);
             }
             capturedFaces[index] = face;
+            if (liveFacesEnabled) {
+                submitFaceEncodeJob(client, index, face);
+            }
+            if (index == capturedFaces.length - 1) {
+                submitStitchJob(client, new CycleImages(detachCapturedFaces(), false), cycleNumber, reservation);
+            }
         }
 
         private final class RenderContext implements AutoCloseable {
@@ -723,7 +1791,7 @@ public final class SpectatorCamClient implements ClientModInitializer {
             @Override
             public void close() {
                 client.gameRenderer.setRenderingPanorama(previousPanoramaMode);
-                client.worldRenderer.scheduleTerrainUpdate();
+                captureView.exit(client.worldRenderer);
                 if (renderPlayerAdded && renderPlayerWorld != null) {
                     renderPlayerWorld.removeEntity(PANORAMA_RENDER_PLAYER_ENTITY_ID, Entity.RemovalReason.DISCARDED);
                 }
@@ -746,74 +1814,284 @@ public final class SpectatorCamClient implements ClientModInitializer {
             }
         }
 
-        private void submitStitchJob(MinecraftClient client, NativeImage[] faces, int cycleNumber) {
-            if (!stitchInFlight.compareAndSet(false, true)) {
-                closeFaces(faces);
-                if (tickCounter - lastSkippedStitchMessageTick >= 100L) {
-                    lastSkippedStitchMessageTick = tickCounter;
-                    send(client, "Skipped one panorama stitch to keep frame time stable.");
+        private void submitStitchJob(MinecraftClient client, CycleImages cycle, int cycleNumber, CapturePipeline.Reservation reservation) {
+            FrameArchive.Pose pose = new FrameArchive.Pose(origin.x, origin.y, origin.z, baseYaw, basePitch);
+            CapturePipeline.Submission submission = stitchPipeline.submit(
+                reservation,
+                cycle,
+                (cycleImages, sequence) -> stitchAndPublish(client, cycleImages, cycleNumber, pose, sequence)
+            );
+            if (submission != CapturePipeline.Submission.QUEUED && tickCounter - lastSkippedStitchMessageTick >= 100L) {
+                lastSkippedStitchMessageTick = tickCounter;
+                send(client, "Dropped one panorama cycle to keep frame time stable.");
+            }
+        }
+
+        private void stitchAndPublish(MinecraftClient client, CycleImages cycle, int cycleNumber, FrameArchive.Pose pose, long sequence) {
+            long started = System.nanoTime();
+            NativeImage[] faces = cycle.images();
+            NativeImage stitched = null;
+            NativeImage equirect = null;
+            try {
+                FrameCodec codec = liveCodec;
+                long hash = PixelHash.hash(faces, Objects.hash(codec, pngCompressionLevel, pngAlpha, liveFacesEnabled, skipFullFrame, equirectEnabled, exportToDisk));
+                if (hash == publishedHash) {
+                    reusePublishedCycle(client, cycleNumber, hash, sequence);
+                    return;
                 }
-                return;
+                stitched = cycle.atlas() ? null : stitchCubemap(faces);
+                NativeImage cubemap = cycle.atlas() ? faces[0] : stitched;
+                NativeImagePixels.fillOpaqueAlpha(cubemap);
+                if (cycle.atlas() && liveFacesEnabled) {
+                    encodeAtlasFaces(cubemap, codec);
+                }
+                List<EncodedFrame> levels = encodeLevels(cubemap, codec, sequence + 1L);
+                // The bundled viewer builds full detail from the faces, so the full-size atlas can be skipped on request;
+                // by default it is kept, since scripts and stream sources fetch live-cubemap directly.
+                boolean fullFrameNeeded = !skipFullFrame || !liveFacesEnabled || archiveEnabled || exportToDisk || levels.isEmpty();
+                byte[] liveBytes = fullFrameNeeded ? encodeFrame(cubemap, codec) : new byte[0];
+                byte[] exportBytes = null;
+                if (exportToDisk) {
+                    // Disk exports stay PNG regardless of the live codec.
+                    exportBytes = codec == FrameCodec.PNG ? liveBytes : encodeFrame(cubemap, FrameCodec.PNG);
+                }
+                EncodedFrame frame = new EncodedFrame(
+                    liveBytes,
+                    codec,
+                    cubemap.getWidth(),
+                    cubemap.getHeight(),
+                    System.currentTimeMillis(),
+                    sequence + 1L
+                );
+                EncodedFrame equirectFrame = null;
+                byte[] equirectExportBytes = null;
+                if (equirectEnabled) {
+                    int equirectWidth = EquirectProjector.outputWidth(cubemap.getWidth() / 3);
+                    equirect = IMAGE_POOL.acquire(equirectWidth, equirectWidth / 2);
+                    EquirectProjector.project(cubemap, CUBEMAP_LAYOUT, equirect);
+                    byte[] equirectBytes = encodeFrame(equirect, codec);
+                    if (exportToDisk) {
+                        equirectExportBytes = codec == FrameCodec.PNG ? equirectBytes : encodeFrame(equirect, FrameCodec.PNG);
+                    }
+                    equirectFrame = new EncodedFrame(
+                        equirectBytes,
+                        codec,
+                        equirect.getWidth(),
+                        equirect.getHeight(),
+                        frame.timestamp(),
+                        sequence + 1L
+                    );
+                }
+
+                byte[] finalExportBytes = exportBytes;
+                byte[] finalEquirectExportBytes = equirectExportBytes;
+                EncodedFrame finalEquirectFrame = equirectFrame;
+                FrameArchive archiveTarget = archiveEnabled ? archive : null;
+                // Recordings prefer the equirect view when it is produced, since that is what 360 video players expect.
+                NativeImage recordSource = equirect != null ? equirect : cubemap;
+                List<CompletableFuture<Path>> exports = new ArrayList<>(2);
+                boolean published = stitchPipeline.publish(sequence, () -> {
+                    recorder.offer(recordSource);
+                    publishedHash = hash;
+                    if (finalExportBytes != null) {
+                        exports.add(exportStage.submit(
+                            exportDirectory(client),
+                            name + "_cubemap",
+                            EXPORT_EXTENSION,
+                            frame.timestamp(),
+                            finalExportBytes
+                        ));
+                    }
+                    if (finalEquirectExportBytes != null) {
+                        exports.add(exportStage.submit(
+                            exportDirectory(client),
+                            name + "_equirect",
+                            EXPORT_EXTENSION,
+                            frame.timestamp(),
+                            finalEquirectExportBytes
+                        ));
+                    }
+                    latestCubemapLevels = levels;
+                    latestEquirectFrame = finalEquirectFrame;
+                    latestCubemapFrame = frame;
+                    // Only the hand-off happens under the publish lock; the append itself runs on the archive thread.
+                    if (archiveTarget != null) {
+                        archiveWriter.submit(archiveTarget, frame, pose, message -> client.execute(() -> send(client, message)));
+                    }
+                });
+                if (!published) {
+                    return;
+                }
+                webRoutes.notifyStateChanged();
+
+                if (exports.isEmpty()) {
+                    client.execute(() -> send(client, String.format(Locale.ROOT, "Panorama cycle %d captured.", cycleNumber)));
+                    return;
+                }
+                // Reported once the file is on disk, so the message never names a file that is still being written.
+                exports.get(0).whenComplete((path, error) -> client.execute(() -> {
+                    if (error == null) {
+                        send(client, String.format(Locale.ROOT, "Panorama cycle %d captured (%s).", cycleNumber, path.getFileName()));
+                    } else if (error instanceof CancellationException) {
+                        send(client, String.format(Locale.ROOT, "Panorama cycle %d captured; export skipped because the disk fell behind.", cycleNumber));
+                    } else {
+                        send(client, String.format(Locale.ROOT, "Panorama cycle %d captured; export failed: %s", cycleNumber, error.getMessage()));
+                    }
+                }));
+            } catch (Exception exception) {
+                client.execute(() -> send(client, "Panorama stitch failed: " + exception.getMessage()));
+            } finally {
+                IMAGE_POOL.release(stitched);
+                IMAGE_POOL.release(equirect);
+                closeFaces(faces);
+                governor.recordEncode(System.nanoTime() - started);
             }
+        }
 
-            stitchExecutor.execute(() -> {
-                try {
-                    byte[] stitchedBytes = stitchCubemapBytes(faces);
-                    long modifiedTime = System.currentTimeMillis();
-                    boolean exportSnapshot = exportToDisk;
-                    Path exportPath = null;
-                    if (exportSnapshot) {
-                        Path screenshotsDir = client.runDirectory.toPath().resolve(ScreenshotRecorder.SCREENSHOTS_DIRECTORY);
-                        Files.createDirectories(screenshotsDir);
-                        exportPath = screenshotsDir.resolve(CUBEMAP_FILE_NAME);
-                        Files.write(exportPath, stitchedBytes);
+        private List<EncodedFrame> encodeLevels(NativeImage atlas, FrameCodec codec, long version) throws IOException {
+            List<EncodedFrame> levels = new ArrayList<>();
+            NativeImage source = atlas;
+            int faceSize = CubemapPyramid.faceSize(atlas);
+            try {
+                while (faceSize / 2 >= CubemapPyramid.MIN_LEVEL_FACE_SIZE) {
+                    faceSize /= 2;
+                    NativeImage level = IMAGE_POOL.acquire(faceSize * 3, faceSize * 2);
+                    CubemapPyramid.halveFaces(source, level);
+                    if (source != atlas) {
+                        IMAGE_POOL.release(source);
                     }
+                    source = level;
+                    byte[] bytes = encodeFrame(level, codec);
+                    levels.add(0, new EncodedFrame(bytes, codec, level.getWidth(), level.getHeight(), System.currentTimeMillis(), version));
+                }
+            } finally {
+                if (source != atlas) {
+                    IMAGE_POOL.release(source);
+                }
+            }
+            return List.copyOf(levels);
+        }
 
-                    latestCubemapBytes = stitchedBytes;
-                    latestCubemapTimestamp = modifiedTime;
-
-                    Path finalExportPath = exportPath;
-                    client.execute(() -> {
-                        if (finalExportPath == null) {
-                            send(client, String.format(Locale.ROOT, "Panorama cycle %d captured.", cycleNumber));
-                        } else {
-                            send(client, String.format(
-                                Locale.ROOT,
-                                "Panorama cycle %d captured (%s).",
-                                cycleNumber,
-                                finalExportPath.getFileName()
-                            ));
-                        }
-                    });
-                } catch (Exception exception) {
-                    client.execute(() -> send(client, "Panorama stitch failed: " + exception.getMessage()));
-                } finally {
-                    closeFaces(faces);
-                    stitchInFlight.set(false);
+        private void reusePublishedCycle(MinecraftClient client, int cycleNumber, long hash, long sequence) {
+            boolean reused = stitchPipeline.publish(sequence, () -> {
+                // A newer cycle with different pixels may have landed since the check; the next cycle then encodes again.
+                if (publishedHash == hash) {
+                    deduplicatedFrames.incrementAndGet();
+                    recorder.repeatLast();
                 }
             });
+            if (reused) {
+                client.execute(() -> send(client, String.format(Locale.ROOT, "Panorama cycle %d unchanged; kept the previous frame.", cycleNumber)));
+            }
         }
 
-        private byte[] stitchCubemapBytes(NativeImage[] faces) throws IOException {
-            try (NativeImage stitched = new NativeImage(PANORAMA_RESOLUTION * 3, PANORAMA_RESOLUTION * 2, false)) {
-                for (int row = 0; row < 2; row++) {
-                    for (int col = 0; col < 3; col++) {
-                        int faceIndex = CUBEMAP_LAYOUT[row * 3 + col];
-                        faces[faceIndex].copyRect(
-                            stitched,
-                            0,
-                            0,
-                            col * PANORAMA_RESOLUTION,
-                            row * PANORAMA_RESOLUTION,
-                            PANORAMA_RESOLUTION,
-                            PANORAMA_RESOLUTION,
-                            false,
-                            false
-                        );
-                    }
+        private void submitFaceEncodeJob(MinecraftClient client, int index, NativeImage face) {
+            // The face is shared with the stitch job rather than copied here, which keeps the copy off the render thread;
+            // whichever of the two releases it last returns it to the pool.
+            IMAGE_POOL.retain(face);
+            long version = faceVersionCounter.incrementAndGet();
+            faceEncodeSlots.submit(index, new PendingFace(client, face, version));
+        }
+
+        private void encodeFace(MinecraftClient client, int index, long version, NativeImage shared) {
+            NativeImage image = null;
+            try {
+                FrameCodec codec = liveCodec;
+                long hash = PixelHash.hash(shared, Objects.hash(codec, pngCompressionLevel, pngAlpha));
+                PublishedFace published = latestFaceFrames.get(index);
+                if (published != null && published.hash() == hash) {
+                    deduplicatedFrames.incrementAndGet();
+                    return;
+                }
+                // The stitch job may still be reading the shared face, so alpha is filled on a private copy.
+                image = IMAGE_POOL.acquire(shared.getWidth(), shared.getHeight());
+                MemoryUtil.memCopy(NativeImagePixels.address(shared), NativeImagePixels.address(image), NativeImagePixels.byteSize(shared));
+                IMAGE_POOL.release(shared);
+                shared = null;
+                NativeImagePixels.fillOpaqueAlpha(image);
+                byte[] bytes = encodeFrame(image, codec);
+                publishFace(index, new EncodedFrame(bytes, codec, image.getWidth(), image.getHeight(), System.currentTimeMillis(), version), hash);
+            } catch (Exception exception) {
+                client.execute(() -> send(client, "Panorama face encode failed: " + exception.getMessage()));
+            } finally {
+                IMAGE_POOL.release(shared);
+                IMAGE_POOL.release(image);
+            }
+        }
+
+        private void encodeAtlasFaces(NativeImage atlas, FrameCodec codec) throws IOException {
+            ByteBuffer pixels = NativeImagePixels.view(atlas);
+            int rowStride = atlas.getWidth() * 4;
+            int faceSize = atlas.getWidth() / 3;
+            for (int slot = 0; slot < CUBEMAP_LAYOUT.length; slot++) {
+                int offset = (slot / 3) * faceSize * rowStride + (slot % 3) * faceSize * 4;
+                byte[] bytes = codec.encode(
+                    pixels,
+                    offset,
+                    faceSize,
+                    faceSize,
+                    rowStride,
+                    pngCompressionLevel,
+                    pngAlpha
+                );
+                long version = faceVersionCounter.incrementAndGet();
+                // Atlas faces are not hashed on their own; a zero hash never matches, so the next face encode always runs.
+                publishFace(
+                    CUBEMAP_LAYOUT[slot],
+                    new EncodedFrame(bytes, codec, faceSize, faceSize, System.currentTimeMillis(), version),
+                    0L
+                );
+            }
+        }
+
+        private void publishFace(int index, EncodedFrame frame, long hash) {
+            // Two encodes of one face can overlap; the hash travels with the frame so the older one can never
+            // leave its hash on top of the newer frame.
+            latestFaceFrames.accumulateAndGet(
+                index,
+                new PublishedFace(frame, hash),
+                (current, candidate) -> current == null || candidate.frame().version() > current.frame().version() ? candidate : current
+            );
+            webRoutes.notifyStateChanged();
+        }
+
+        private Path exportDirectory(MinecraftClient client) {
+            return client.runDirectory.toPath().resolve(ScreenshotRecorder.SCREENSHOTS_DIRECTORY);
+        }
+
+        private NativeImage stitchCubemap(NativeImage[] faces) {
+            int faceSize = faces[0].getWidth();
+            NativeImage stitched = IMAGE_POOL.acquire(faceSize * 3, faceSize * 2);
+            for (int row = 0; row < 2; row++) {
+                for (int col = 0; col < 3; col++) {
+                    int faceIndex = CUBEMAP_LAYOUT[row * 3 + col];
+                    faces[faceIndex].copyRect(
+                        stitched,
+                        0,
+                        0,
+                        col * faceSize,
+                        row * faceSize,
+                        faceSize,
+                        faceSize,
+                        false,
+                        false
+                    );
+                }
+            }
+            return stitched;
+        }
+
+        private byte[] encodeFrame(NativeImage image, FrameCodec codec) throws IOException {
+            return codec.encode(NativeImagePixels.view(image), image.getWidth(), image.getHeight(), pngCompressionLevel, pngAlpha);
+        }
+
+        private int atlasSlotForFace(int faceIndex) {
+            for (int slot = 0; slot < CUBEMAP_LAYOUT.length; slot++) {
+                if (CUBEMAP_LAYOUT[slot] == faceIndex) {
+                    return slot;
                 }
-                return stitched.getBytes();
             }
+            throw new IllegalArgumentException("Unsupported panorama face index: " + faceIndex);
         }
 
         private NativeImage[] detachCapturedFaces() {
@@ -910,15 +2188,26 @@ public final class SpectatorCamClient implements ClientModInitializer {
         }
 
         private void ensureFramebuffers(MinecraftClient client) {
+            int renderSize = cycleRenderSize();
             if (panoramaRenderFramebuffer == null
-                || panoramaRenderFramebuffer.textureWidth != PANORAMA_RESOLUTION
-                || panoramaRenderFramebuffer.textureHeight != PANORAMA_RESOLUTION) {
+                || panoramaRenderFramebuffer.textureWidth != renderSize
+                || panoramaRenderFramebuffer.textureHeight != renderSize) {
                 if (panoramaRenderFramebuffer != null) {
                     panoramaRenderFramebuffer.delete();
                 }
-                panoramaRenderFramebuffer = new SimpleFramebuffer(PANORAMA_RESOLUTION, PANORAMA_RESOLUTION, true, MinecraftClient.IS_SYSTEM_MAC);
+                panoramaRenderFramebuffer = new SimpleFramebuffer(renderSize, renderSize, true, MinecraftClient.IS_SYSTEM_MAC);
                 panoramaRenderFramebuffer.setClearColor(0.0f, 0.0f, 0.0f, 0.0f);
             }
+
+            if (cycleUsesAtlas && (panoramaAtlasFramebuffer == null
+                || panoramaAtlasFramebuffer.textureWidth != renderSize * 3
+                || panoramaAtlasFramebuffer.textureHeight != renderSize * 2)) {
+                if (panoramaAtlasFramebuffer != null) {
+                    panoramaAtlasFramebuffer.delete();
+                }
+                panoramaAtlasFramebuffer = new SimpleFramebuffer(renderSize * 3, renderSize * 2, true, MinecraftClient.IS_SYSTEM_MAC);
+                panoramaAtlasFramebuffer.setClearColor(0.0f, 0.0f, 0.0f, 0.0f);
+            }
         }
 
         private void positionPanoramaEntity(float yaw, float pitch) {
@@ -945,7 +2234,19 @@ public final class SpectatorCamClient implements ClientModInitializer {
             nextCycleTick = 0L;
             completedCycles = 0;
             activeFaceIndex = -1;
+            captureGeneration++;
             clearCapturedFaces();
+            faceReadback.close();
+            stitchPipeline.clear();
+            faceEncodeSlots.clear();
+            releaseImagePoolIfIdle();
+            webRoutes.notifyStateChanged();
+            FrameArchive current = archive;
+            if (current != null) {
+                archiveWriter.close(current);
+            }
+            recorder.stop();
+            captureView.reset();
             panoramaEntity = null;
             panoramaWorld = null;
             panoramaRenderPlayerEntity = null;
@@ -955,6 +2256,12 @@ public final class SpectatorCamClient implements ClientModInitializer {
                 panoramaRenderFramebuffer.delete();
                 panoramaRenderFramebuffer = null;
             }
+            if (panoramaAtlasFramebuffer != null) {
+                panoramaAtlasFramebuffer.delete();
+                panoramaAtlasFramebuffer = null;
+            }
+            faceDownsampler.close();
+            atlasDownsampler.close();
 
             if (reason != null) {
                 send(client, reason);
@@ -963,9 +2270,13 @@ public final class SpectatorCamClient implements ClientModInitializer {
             }
         }
 
+        private void release() {
+            webRoutes.unmount();
+        }
+
         private void send(MinecraftClient client, String message) {
             if (client.player != null) {
-                client.player.sendMessage(Text.literal(MESSAGE_PREFIX + message), false);
+                client.player.sendMessage(Text.literal(MESSAGE_PREFIX + cameraLabel(name) + message), false);
             }
         }
 
@@ -974,14 +2285,19 @@ public final class SpectatorCamClient implements ClientModInitializer {
                 Text link = Text.literal(url).styled(style -> style
                     .withUnderline(true)
                     .withClickEvent(new ClickEvent(ClickEvent.Action.OPEN_URL, url)));
-                client.player.sendMessage(Text.literal(MESSAGE_PREFIX + "Panorama viewer: ").append(link), false);
+                client.player.sendMessage(Text.literal(MESSAGE_PREFIX + cameraLabel(name) + "Panorama viewer: ").append(link), false);
             }
         }
 
         private void clearCapturedFaces() {
+            // Every caller abandons the cycle in progress; a cycle that never reached readback would otherwise hold its slot.
+            if (cycleReservation != null) {
+                stitchPipeline.cancelReservation(cycleReservation);
+                cycleReservation = null;
+            }
             for (int i = 0; i < capturedFaces.length; i++) {
                 if (capturedFaces[i] != null) {
-                    capturedFaces[i].close();
+                    IMAGE_POOL.release(capturedFaces[i]);
                     capturedFaces[i] = null;
                 }
             }
@@ -990,7 +2306,7 @@ public final class SpectatorCamClient implements ClientModInitializer {
         private void closeFaces(NativeImage[] faces) {
             for (int i = 0; i < faces.length; i++) {
                 if (faces[i] != null) {
-                    faces[i].close();
+                    IMAGE_POOL.release(faces[i]);
                     faces[i] = null;
                 }
             }
@@ -1002,17 +2318,48 @@ public final class SpectatorCamClient implements ClientModInitializer {
         }
 
         @Override
-        public byte[] getLatestCubemapBytes() {
-            return latestCubemapBytes;
+        public EncodedFrame getLatestCubemapFrame() {
+            return latestCubemapFrame;
+        }
+
+        @Override
+        public EncodedFrame getLatestEquirectFrame() {
+            return latestEquirectFrame;
+        }
+
+        @Override
+        public FrameArchive getArchive() {
+            return archive;
+        }
+
+        @Override
+        public List<EncodedFrame> getLatestCubemapLevels() {
+            return latestCubemapLevels;
+        }
+
+        @Override
+        public EncodedFrame getLatestFaceFrame(int index) {
+            PublishedFace published = latestFaceFrames.get(index);
+            return published != null ? published.frame() : null;
         }
 
         @Override
-        public long getLatestCubemapTimestamp() {
-            return latestCubemapTimestamp;
+        public long getDeduplicatedFrames() {
+            return deduplicatedFrames.get();
+        }
+
+        private record PendingFace(MinecraftClient client, NativeImage image, long version) {
+        }
+
+        private record PublishedFace(EncodedFrame frame, long hash) {
+        }
+
+        // An atlas cycle arrives already laid out as the 3x2 cubemap; a face cycle still has to be stitched.
+        private record CycleImages(NativeImage[] images, boolean atlas) {
         }
     }
 
-    private static final class SingleCaptureController implements SinglePreviewWebServer.StateProvider {
+    private static final class SingleCaptureController implements SinglePreviewWebRoutes.StateProvider, CaptureScheduler.Job {
         private static final UUID SINGLE_PROFILE_ID = UUID.fromString("d5d2f96a-8f54-4f75-92f1-a4051512e53b");
         private static final UUID SINGLE_RENDER_PLAYER_PROFILE_ID = UUID.fromString("fb3c2f64-a8d6-4a65-b5fb-c6d58f2ce6ca");
         private static final int SINGLE_RENDER_PLAYER_ENTITY_ID = Integer.MIN_VALUE + 43;
@@ -1023,8 +2370,13 @@ public final class SpectatorCamClient implements ClientModInitializer {
         private static final int DEFAULT_SINGLE_FOV = 90;
         private static final int MIN_SINGLE_FOV = 1;
         private static final int MAX_SINGLE_FOV = 179;
+        private static final int FRAME_READBACK_SLOTS = 3;
+        private static final int DEFAULT_PIPELINE_SLOTS = 3;
+        private static final int DEFAULT_PIPELINE_WORKERS = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() / 2));
         private static final int CLEAR_COLOR_AND_DEPTH = 0x4100;
 
+        private final String name;
+        private final SinglePreviewWebRoutes webRoutes;
         private volatile boolean running;
         private long tickCounter;
         private long intervalTicks;
@@ -1038,44 +2390,94 @@ public final class SpectatorCamClient implements ClientModInitializer {
         private OtherClientPlayerEntity singleRenderPlayerEntity;
         private ClientWorld singleRenderPlayerWorld;
         private SimpleFramebuffer singleRenderFramebuffer;
+        private final PixelReadbackQueue frameReadback = new PixelReadbackQueue(FRAME_READBACK_SLOTS, IMAGE_POOL);
+        private long captureGeneration;
         private int captureWidth = DEFAULT_SINGLE_WIDTH;
         private int captureHeight = DEFAULT_SINGLE_HEIGHT;
         private int captureFov = DEFAULT_SINGLE_FOV;
         private volatile boolean renderPlayerEnabled;
-        private volatile byte[] latestImageBytes;
-        private volatile long latestImageTimestamp;
-        private final ExecutorService encodeExecutor = Executors.newSingleThreadExecutor(runnable -> {
-            Thread thread = new Thread(runnable, "panshot-single-encode");
-            thread.setDaemon(true);
-            return thread;
-        });
-        private final AtomicBoolean encodeInFlight = new AtomicBoolean(false);
+        private volatile int pngCompressionLevel = ParallelPngEncoder.DEFAULT_COMPRESSION_LEVEL;
+        private volatile boolean pngAlpha = true;
+        private volatile FrameCodec liveCodec = FrameCodec.PNG;
+        private volatile int mjpegQuality = JpegEncoder.DEFAULT_QUALITY;
+        private volatile EncodedFrame latestImageFrame;
+        private final AtomicLong deduplicatedFrames = new AtomicLong();
+        private final Object mjpegLock = new Object();
+        private long publishedMjpegSequence = -1L;
+        private volatile long publishedHash;
+        private volatile FrameArchive archive;
+        private volatile boolean archiveEnabled;
+        private final TimelapseRecorder recorder;
+        private final ArchiveWriter archiveWriter;
+        private final CaptureGovernor governor = new CaptureGovernor(1);
+        private final CaptureViewState captureView = new CaptureViewState();
+        private final CapturePipeline<NativeImage> encodePipeline;
         private long lastSkippedEncodeMessageTick = Long.MIN_VALUE;
 
-        private void tick(MinecraftClient client) {
+        private SingleCaptureController(String name, SinglePreviewWebRoutes webRoutes) {
+            this.name = name;
+            this.webRoutes = webRoutes;
+            this.recorder = new TimelapseRecorder(name, IMAGE_POOL);
+            this.archiveWriter = new ArchiveWriter("panshot-archive-" + name, ARCHIVE_WRITE_SLOTS);
+            this.encodePipeline = new CapturePipeline<>(
+                "panshot-single-encode-" + name,
+                DEFAULT_PIPELINE_SLOTS,
+                DEFAULT_PIPELINE_WORKERS,
+                CapturePipeline.BackpressurePolicy.DROP_OLDEST,
+                IMAGE_POOL::release
+            );
+        }
+
+        @Override
+        public boolean isScheduled() {
+            return running;
+        }
+
+        @Override
+        public boolean prepare(MinecraftClient client) {
             tickCounter++;
             if (!running) {
-                return;
+                return false;
             }
 
             if (client.player == null || client.world == null) {
                 stopInternal(client, false, "Single preview stopped because no world is loaded.");
-                return;
+                return false;
             }
 
             if (singleEntity == null || singleWorld != client.world) {
                 ensureSingleEntity(client.world);
             }
 
-            if (tickCounter < nextCaptureTick) {
-                return;
+            try {
+                long pollStart = System.nanoTime();
+                frameReadback.poll();
+                governor.recordReadback(System.nanoTime() - pollStart);
+            } catch (Exception exception) {
+                stopInternal(client, false, null);
+                send(client, "Single preview capture failed: " + exception.getMessage());
+                return false;
             }
+            return tickCounter >= nextCaptureTick && encodePipeline.hasCapacity();
+        }
 
+        @Override
+        public long ticksUntilDue() {
+            return nextCaptureTick - tickCounter;
+        }
+
+        @Override
+        public void capture(MinecraftClient client) {
+            CapturePipeline.Reservation reservation = encodePipeline.tryReserve();
+            if (reservation == null) {
+                return;
+            }
             try {
-                NativeImage image = captureSingleFrame(client);
+                long renderStart = System.nanoTime();
+                captureSingleFrame(client, reservation);
+                governor.recordRender(System.nanoTime() - renderStart, 1, false);
                 completedCaptures++;
-                nextCaptureTick = tickCounter + intervalTicks;
-                submitEncodeJob(client, image);
+                nextCaptureTick = tickCounter + governor.intervalTicks(intervalTicks, encodePipeline.workers());
             } catch (Exception exception) {
                 stopInternal(client, false, null);
                 send(client, "Single preview capture failed: " + exception.getMessage());
@@ -1098,20 +2500,22 @@ public final class SpectatorCamClient implements ClientModInitializer {
                 return 0;
             }
 
-            PANORAMA_CONTROLLER.stop(client, false);
             origin = new Vec3d(x, y, z);
             this.yaw = yaw;
             this.pitch = clampPitch(pitch);
             intervalTicks = Math.max(1L, Math.round(intervalSeconds * 20.0));
             running = true;
             completedCaptures = 0;
+            governor.reset();
+            captureGeneration++;
             nextCaptureTick = tickCounter;
             ensureSingleEntity(client.world);
             ensureFramebuffers(captureWidth, captureHeight);
 
             try {
-                String viewerUrl = SINGLE_WEB_SERVER.ensureStarted(this);
+                String viewerUrl = webRoutes.ensureStarted(this);
                 sendViewerLink(client, viewerUrl);
+                webRoutes.notifyStateChanged();
             } catch (IOException exception) {
                 send(client, "Single viewer failed to start: " + exception.getMessage());
             }
@@ -1154,7 +2558,7 @@ public final class SpectatorCamClient implements ClientModInitializer {
             double seconds = Math.max(0.0, (nextCaptureTick - tickCounter) / 20.0);
             send(client, String.format(
                 Locale.ROOT,
-                "Running: next frame in %.2f seconds from %.3f %.3f %.3f (yaw %.1f, pitch %.1f, frames %d, %dx%d, fov %d, renderplayer %s).",
+                "Running: next frame in %.2f seconds from %.3f %.3f %.3f (yaw %.1f, pitch %.1f, frames %d, deduplicated %d, %dx%d, fov %d, renderplayer %s).",
                 seconds,
                 origin.x,
                 origin.y,
@@ -1162,11 +2566,72 @@ public final class SpectatorCamClient implements ClientModInitializer {
                 yaw,
                 pitch,
                 completedCaptures,
+                deduplicatedFrames.get(),
                 captureWidth,
                 captureHeight,
                 captureFov,
                 renderPlayerEnabled ? "on" : "off"
             ));
+            send(client, "Governor: " + governor.describe() + ".");
+            send(client, "Culling: " + captureView.describe() + ".");
+            return 1;
+        }
+
+        private int archiveStatus(MinecraftClient client) {
+            FrameArchive current = archive;
+            send(client, "Single archive is " + (archiveEnabled ? "on" : "off")
+                + (current != null ? " (" + current.describe() + "; " + archiveWriter.describe() + ")" : "") + ".");
+            return 1;
+        }
+
+        private int setArchiveEnabled(MinecraftClient client, boolean enabled) {
+            ensureArchive(client);
+            archiveEnabled = enabled;
+            send(client, "Single archive " + (enabled ? "enabled" : "disabled") + ".");
+            return 1;
+        }
+
+        private int setArchiveRetention(MinecraftClient client, int megabytes, double hours) {
+            try {
+                ensureArchive(client).setRetention((long)megabytes << 20, Math.round(hours * 3_600_000.0));
+            } catch (IOException exception) {
+                send(client, "Single archive retention failed: " + exception.getMessage());
+                return 0;
+            }
+            send(client, String.format(Locale.ROOT, "Single archive keeps %d MB for %.1f hours.", megabytes, hours));
+            return 1;
+        }
+
+        private FrameArchive ensureArchive(MinecraftClient client) {
+            if (archive == null) {
+                archive = openArchive(client, name);
+            }
+            return archive;
+        }
+
+        private int recordStatus(MinecraftClient client) {
+            send(client, "Single recording is " + recorder.describe() + ".");
+            return 1;
+        }
+
+        private int startRecording(MinecraftClient client, int framesPerSecond) {
+            recorder.start(
+                recordingDirectory(client),
+                framesPerSecond,
+                TimelapseRecorder.DEFAULT_QUALITY,
+                message -> client.execute(() -> send(client, message))
+            );
+            send(client, String.format(Locale.ROOT, "Single recording started at %d fps.", framesPerSecond));
+            return 1;
+        }
+
+        private int stopRecording(MinecraftClient client) {
+            if (!recorder.isRecording()) {
+                send(client, "Single recording is not running.");
+                return 0;
+            }
+            recorder.stop();
+            send(client, "Single recording stopped; finalizing video.");
             return 1;
         }
 
@@ -1214,15 +2679,120 @@ public final class SpectatorCamClient implements ClientModInitializer {
             return 1;
         }
 
-        private NativeImage captureSingleFrame(MinecraftClient client) {
+        private int pngStatus(MinecraftClient client) {
+            send(client, String.format(
+                Locale.ROOT,
+                "Single PNG level is %d, alpha %s.",
+                pngCompressionLevel,
+                pngAlpha ? "on" : "off"
+            ));
+            return 1;
+        }
+
+        private int setPngCompressionLevel(MinecraftClient client, int level) {
+            pngCompressionLevel = Math.max(0, Math.min(9, level));
+            send(client, String.format(Locale.ROOT, "Single PNG level set to %d.", pngCompressionLevel));
+            return 1;
+        }
+
+        private int setPngAlphaEnabled(MinecraftClient client, boolean enabled) {
+            pngAlpha = enabled;
+            send(client, "Single PNG alpha " + (enabled ? "enabled" : "disabled") + ".");
+            return 1;
+        }
+
+        private int codecStatus(MinecraftClient client) {
+            send(client, "Single live codec is " + liveCodec.displayName() + ".");
+            return 1;
+        }
+
+        private int setLiveCodec(MinecraftClient client, FrameCodec codec) {
+            liveCodec = codec;
+            send(client, "Single live codec set to " + codec.displayName() + ".");
+            return 1;
+        }
+
+        private int mjpegStatus(MinecraftClient client) {
+            send(client, String.format(
+                Locale.ROOT,
+                "Single MJPEG quality is %d, %d client(s) connected.",
+                mjpegQuality,
+                webRoutes.mjpegClientCount()
+            ));
+            return 1;
+        }
+
+        private int setMjpegQuality(MinecraftClient client, int quality) {
+            mjpegQuality = Math.max(1, Math.min(100, quality));
+            send(client, String.format(Locale.ROOT, "Single MJPEG quality set to %d.", mjpegQuality));
+            return 1;
+        }
+
+        private int governorStatus(MinecraftClient client) {
+            send(client, "Single governor is " + governor.describe() + ".");
+            return 1;
+        }
+
+        private int setGovernorEnabled(MinecraftClient client, boolean enabled) {
+            governor.configure(enabled, governor.budgetMillis(), governor.maxIntervalFactor(), governor.maxResolutionDivisor());
+            governor.reset();
+            send(client, "Single governor " + (enabled ? "enabled" : "disabled") + ".");
+            return 1;
+        }
+
+        private int setGovernorBudget(MinecraftClient client, double milliseconds) {
+            governor.configure(governor.isEnabled(), milliseconds, governor.maxIntervalFactor(), governor.maxResolutionDivisor());
+            send(client, String.format(Locale.ROOT, "Single governor budget set to %.1f ms per tick.", milliseconds));
+            return 1;
+        }
+
+        private int setGovernorLimits(MinecraftClient client, int intervalFactor, int divisor) {
+            if (Integer.bitCount(divisor) != 1) {
+                send(client, "Single governor resolution divisor must be 1, 2 or 4.");
+                return 0;
+            }
+            governor.configure(governor.isEnabled(), governor.budgetMillis(), intervalFactor, divisor);
+            send(client, String.format(
+                Locale.ROOT,
+                "Single governor may stretch the interval up to %dx and divide the resolution by up to %d.",
+                intervalFactor,
+                divisor
+            ));
+            return 1;
+        }
+
+        private int pipelineStatus(MinecraftClient client) {
+            send(client, "Single pipeline: " + encodePipeline.describe() + ".");
+            return 1;
+        }
+
+        private int setPipelineSlots(MinecraftClient client, int slots) {
+            encodePipeline.configure(slots, encodePipeline.workers(), encodePipeline.policy());
+            send(client, String.format(Locale.ROOT, "Single pipeline slots set to %d.", slots));
+            return 1;
+        }
+
+        private int setPipelineWorkers(MinecraftClient client, int workers) {
+            encodePipeline.configure(encodePipeline.slots(), workers, encodePipeline.policy());
+            send(client, String.format(Locale.ROOT, "Single pipeline workers set to %d.", workers));
+            return 1;
+        }
+
+        private int setPipelinePolicy(MinecraftClient client, CapturePipeline.BackpressurePolicy policy) {
+            encodePipeline.configure(encodePipeline.slots(), encodePipeline.workers(), policy);
+            send(client, "Single pipeline policy set to " + policy.displayName() + ".");
+            return 1;
+        }
+
+        private void captureSingleFrame(MinecraftClient client, CapturePipeline.Reservation reservation) {
             try (RenderContext context = beginSingleRender(client)) {
-                return renderSingleFrame(client);
+                renderSingleFrame(client, reservation);
             }
         }
 
         private RenderContext beginSingleRender(MinecraftClient client) {
-            int width = captureWidth;
-            int height = captureHeight;
+            int width = governor.scaledSize(captureWidth, MIN_SINGLE_DIMENSION);
+            int height = governor.scaledSize(captureHeight, MIN_SINGLE_DIMENSION);
             int targetFov = captureFov;
             float zoom = zoomFactorForFov(targetFov);
             ensureFramebuffers(width, height);
@@ -1267,7 +2837,7 @@ public final class SpectatorCamClient implements ClientModInitializer {
             gameRendererAccessor.spectatorcam$setRenderHand(false);
             gameRendererAccessor.spectatorcam$setRenderBlockOutline(false);
             client.gameRenderer.setRenderingPanorama(true);
-            client.worldRenderer.scheduleTerrainUpdate();
+            captureView.enter(client.worldRenderer, origin);
             if (renderPlayerEnabled && client.player != null && client.world != null) {
                 OtherClientPlayerEntity renderPlayer = ensureRenderPlayerEntity(client.world, client.player);
                 syncRenderPlayerEntity(client.player, renderPlayer);
@@ -1303,12 +2873,23 @@ public final class SpectatorCamClient implements ClientModInitializer {
             );
         }
 
-        private NativeImage renderSingleFrame(MinecraftClient client) {
+        private void renderSingleFrame(MinecraftClient client, CapturePipeline.Reservation reservation) {
             positionSingleEntity(yaw, pitch);
             RenderSystem.clearColor(0.0f, 0.0f, 0.0f, 0.0f);
             RenderSystem.clear(CLEAR_COLOR_AND_DEPTH, MinecraftClient.IS_SYSTEM_MAC);
             client.gameRenderer.renderWorld(RenderTickCounter.ONE);
-            return ScreenshotRecorder.takeScreenshot(singleRenderFramebuffer);
+
+            long generation = captureGeneration;
+            frameReadback.submit(singleRenderFramebuffer, image -> acceptCapturedFrame(client, generation, reservation, image));
+        }
+
+        private void acceptCapturedFrame(MinecraftClient client, long generation, CapturePipeline.Reservation reservation, NativeImage image) {
+            if (generation != captureGeneration) {
+                IMAGE_POOL.release(image);
+                encodePipeline.cancelReservation(reservation);
+                return;
+            }
+            submitEncodeJob(client, image, reservation);
         }
 
         private final class RenderContext implements AutoCloseable {
@@ -1389,7 +2970,7 @@ public final class SpectatorCamClient implements ClientModInitializer {
             @Override
             public void close() {
                 client.gameRenderer.setRenderingPanorama(previousPanoramaMode);
-                client.worldRenderer.scheduleTerrainUpdate();
+                captureView.exit(client.worldRenderer);
                 if (renderPlayerAdded && renderPlayerWorld != null) {
                     renderPlayerWorld.removeEntity(SINGLE_RENDER_PLAYER_ENTITY_ID, Entity.RemovalReason.DISCARDED);
                 }
@@ -1419,26 +3000,87 @@ public final class SpectatorCamClient implements ClientModInitializer {
             }
         }
 
-        private void submitEncodeJob(MinecraftClient client, NativeImage image) {
-            if (!encodeInFlight.compareAndSet(false, true)) {
-                image.close();
-                if (tickCounter - lastSkippedEncodeMessageTick >= 100L) {
-                    lastSkippedEncodeMessageTick = tickCounter;
-                    send(client, "Skipped one single-frame update to keep frame time stable.");
+        private void submitEncodeJob(MinecraftClient client, NativeImage image, CapturePipeline.Reservation reservation) {
+            FrameArchive.Pose pose = new FrameArchive.Pose(origin.x, origin.y, origin.z, yaw, pitch);
+            CapturePipeline.Submission submission = encodePipeline.submit(
+                reservation,
+                image,
+                (capturedImage, sequence) -> encodeAndPublish(client, capturedImage, pose, sequence)
+            );
+            if (submission != CapturePipeline.Submission.QUEUED && tickCounter - lastSkippedEncodeMessageTick >= 100L) {
+                lastSkippedEncodeMessageTick = tickCounter;
+                send(client, "Dropped one single-frame update to keep frame time stable.");
+            }
+        }
+
+        private void encodeAndPublish(MinecraftClient client, NativeImage image, FrameArchive.Pose pose, long sequence) {
+            long started = System.nanoTime();
+            try {
+                FrameCodec codec = liveCodec;
+                boolean mjpeg = webRoutes.hasMjpegClients();
+                long hash = PixelHash.hash(image, Objects.hash(codec, pngCompressionLevel, pngAlpha, mjpeg, mjpegQuality));
+                if (hash == publishedHash) {
+                    encodePipeline.publish(sequence, () -> {
+                        // Pixels published since the check win; the next capture then sees a different hash and encodes.
+                        if (publishedHash == hash) {
+                            deduplicatedFrames.incrementAndGet();
+                            recorder.repeatLast();
+                        }
+                    });
+                    return;
                 }
-                return;
+                NativeImagePixels.fillOpaqueAlpha(image);
+                // JPEG is only worth the extra encode while a low-latency viewer is actually connected. It goes out
+                // before the PNG/QOI encode starts, so the stream never waits on the slower codec.
+                if (mjpeg) {
+                    byte[] jpeg = JpegEncoder.encode(NativeImagePixels.view(image), image.getWidth(), image.getHeight(), mjpegQuality);
+                    publishMjpegFrame(sequence, jpeg);
+                }
+                byte[] bytes = codec.encode(
+                    NativeImagePixels.view(image),
+                    image.getWidth(),
+                    image.getHeight(),
+                    pngCompressionLevel,
+                    pngAlpha
+                );
+                EncodedFrame frame = new EncodedFrame(
+                    bytes,
+                    codec,
+                    image.getWidth(),
+                    image.getHeight(),
+                    System.currentTimeMillis(),
+                    sequence + 1L
+                );
+                FrameArchive archiveTarget = archiveEnabled ? archive : null;
+                boolean published = encodePipeline.publish(sequence, () -> {
+                    recorder.offer(image);
+                    publishedHash = hash;
+                    latestImageFrame = frame;
+                    // Only the hand-off happens under the publish lock; the append itself runs on the archive thread.
+                    if (archiveTarget != null) {
+                        archiveWriter.submit(archiveTarget, frame, pose, message -> client.execute(() -> send(client, message)));
+                    }
+                });
+                if (published) {
+                    webRoutes.notifyStateChanged();
+                }
+            } catch (Exception exception) {
+                client.execute(() -> send(client, "Single preview encode failed: " + exception.getMessage()));
+            } finally {
+                IMAGE_POOL.release(image);
+                governor.recordEncode(System.nanoTime() - started);
             }
+        }
 
-            encodeExecutor.execute(() -> {
-                try (NativeImage capturedImage = image) {
-                    latestImageBytes = capturedImage.getBytes();
-                    latestImageTimestamp = System.currentTimeMillis();
-                } catch (Exception exception) {
-                    client.execute(() -> send(client, "Single preview encode failed: " + exception.getMessage()));
-                } finally {
-                    encodeInFlight.set(false);
+        private void publishMjpegFrame(long sequence, byte[] jpeg) {
+            // Workers finish their JPEGs out of order, so the stream keeps its own newest-wins sequence.
+            synchronized (mjpegLock) {
+                if (sequence <= publishedMjpegSequence) {
+                    return;
                 }
-            });
+                publishedMjpegSequence = sequence;
+                webRoutes.publishMjpegFrame(jpeg);
+            }
         }
 
         private float clampPitch(float value) {
@@ -1555,6 +3197,17 @@ public final class SpectatorCamClient implements ClientModInitializer {
             intervalTicks = 0L;
             nextCaptureTick = 0L;
             completedCaptures = 0;
+            captureGeneration++;
+            frameReadback.close();
+            encodePipeline.clear();
+            releaseImagePoolIfIdle();
+            webRoutes.notifyStateChanged();
+            FrameArchive current = archive;
+            if (current != null) {
+                archiveWriter.close(current);
+            }
+            recorder.stop();
+            captureView.reset();
             singleEntity = null;
             singleWorld = null;
             singleRenderPlayerEntity = null;
@@ -1572,9 +3225,13 @@ public final class SpectatorCamClient implements ClientModInitializer {
             }
         }
 
+        private void release() {
+            webRoutes.unmount();
+        }
+
         private void send(MinecraftClient client, String message) {
             if (client.player != null) {
-                client.player.sendMessage(Text.literal(MESSAGE_PREFIX + message), false);
+                client.player.sendMessage(Text.literal(MESSAGE_PREFIX + cameraLabel(name) + message), false);
             }
         }
 
@@ -1583,7 +3240,7 @@ public final class SpectatorCamClient implements ClientModInitializer {
                 Text link = Text.literal(url).styled(style -> style
                     .withUnderline(true)
                     .withClickEvent(new ClickEvent(ClickEvent.Action.OPEN_URL, url)));
-                client.player.sendMessage(Text.literal(MESSAGE_PREFIX + "Single viewer: ").append(link), false);
+                client.player.sendMessage(Text.literal(MESSAGE_PREFIX + cameraLabel(name) + "Single viewer: ").append(link), false);
             }
         }
 
@@ -1593,13 +3250,18 @@ public final class SpectatorCamClient implements ClientModInitializer {
         }
 
         @Override
-        public byte[] getLatestImageBytes() {
-            return latestImageBytes;
+        public EncodedFrame getLatestImageFrame() {
+            return latestImageFrame;
+        }
+
+        @Override
+        public long getDeduplicatedFrames() {
+            return deduplicatedFrames.get();
         }
 
         @Override
-        public long getLatestImageTimestamp() {
-            return latestImageTimestamp;
+        public FrameArchive getArchive() {
+            return archive;
         }
     }
 }
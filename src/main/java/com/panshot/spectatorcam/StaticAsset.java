@@ -0,0 +1,133 @@
+package com.panshot.spectatorcam;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+final class StaticAsset {
+    private static final int HASH_LENGTH = 12;
+
+    private final String contentType;
+    private final byte[] identity;
+    private final byte[] gzip;
+    private final String hash;
+    private final String identityEtag;
+    private final String gzipEtag;
+
+    private StaticAsset(String contentType, byte[] identity) {
+        this.contentType = contentType;
+        this.identity = identity;
+        this.gzip = gzip(identity);
+        this.hash = contentHash(identity);
+        // The two encodings are different bytes, so each carries its own strong validator.
+        this.identityEtag = "\"" + hash + "\"";
+        this.gzipEtag = "\"" + hash + "-gz\"";
+    }
+
+    static StaticAsset of(String contentType, byte[] bytes) {
+        return new StaticAsset(contentType, bytes);
+    }
+
+    String hash() {
+        return hash;
+    }
+
+    void send(HttpExchange exchange, String cacheControl) throws IOException {
+        Headers headers = exchange.getResponseHeaders();
+        // Compressed once at startup; a request only picks which of the two copies to write.
+        boolean compressed = acceptsGzip(exchange.getRequestHeaders().getFirst("Accept-Encoding")) && gzip.length < identity.length;
+        String etag = compressed ? gzipEtag : identityEtag;
+        headers.set("ETag", etag);
+        headers.set("Cache-Control", cacheControl);
+        headers.set("Vary", "Accept-Encoding");
+        if (matchesAny(exchange.getRequestHeaders().getFirst("If-None-Match"), etag)) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        byte[] payload = compressed ? gzip : identity;
+        headers.set("Content-Type", contentType);
+        if (compressed) {
+            headers.set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(200, payload.length);
+        WriteDeadline.write(exchange.getResponseBody(), payload);
+        exchange.close();
+    }
+
+    private static boolean matchesAny(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        // If-None-Match uses weak comparison, so a W/ prefix added by an intermediary still matches.
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String candidate : acceptEncoding.split(",")) {
+            String[] parts = candidate.trim().split(";");
+            if (!parts[0].trim().equalsIgnoreCase("gzip")) {
+                continue;
+            }
+            for (int index = 1; index < parts.length; index++) {
+                String parameter = parts[index].trim();
+                if (parameter.startsWith("q=") && isZeroQuality(parameter.substring(2))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isZeroQuality(String value) {
+        try {
+            return Double.parseDouble(value) <= 0.0;
+        } catch (NumberFormatException exception) {
+            return false;
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 3 + 64);
+        try (GZIPOutputStream stream = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            stream.write(bytes);
+        } catch (IOException exception) {
+            throw new IllegalStateException("Failed to compress static asset", exception);
+        }
+        return out.toByteArray();
+    }
+
+    private static String contentHash(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return HexFormat.of().formatHex(digest).substring(0, HASH_LENGTH);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-256 unavailable", exception);
+        }
+    }
+}
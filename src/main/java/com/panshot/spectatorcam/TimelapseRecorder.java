@@ -0,0 +1,211 @@
+package com.panshot.spectatorcam;
+
+import net.minecraft.client.texture.NativeImage;
+import org.lwjgl.system.MemoryUtil;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+public final class TimelapseRecorder {
+    public static final int DEFAULT_FRAMES_PER_SECOND = 30;
+    public static final int DEFAULT_QUALITY = 90;
+    // AVI 1.0 offsets are 32-bit and many players give up well before 4 GB, so long recordings roll into parts.
+    private static final long MAX_PART_BYTES = 1L << 30;
+    private static final int MAX_PENDING_FRAMES = 3;
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss", Locale.ROOT);
+
+    private final String name;
+    private final NativeImagePool pool;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore pendingFrames = new Semaphore(MAX_PENDING_FRAMES);
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private volatile Session session;
+    private volatile String lastFile;
+    private AviMjpegWriter writer;
+    private Session writerSession;
+    private byte[] lastJpeg;
+    private int part;
+
+    public TimelapseRecorder(String name, NativeImagePool pool) {
+        this.name = name;
+        this.pool = pool;
+        this.executor = new ThreadPoolExecutor(
+            1,
+            1,
+            30L,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "panshot-record-" + name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public boolean isRecording() {
+        return session != null;
+    }
+
+    public synchronized void start(Path directory, int framesPerSecond, int quality, Consumer<String> notifier) {
+        stop();
+        droppedFrames.set(0L);
+        String baseName = name + "_" + LocalDateTime.now().format(FILE_TIME);
+        session = new Session(directory, baseName, framesPerSecond, quality, notifier);
+    }
+
+    public synchronized void stop() {
+        if (session == null) {
+            return;
+        }
+        session = null;
+        // Queued behind any frames still being written, so the finished file contains all of them.
+        executor.execute(this::finishWriter);
+    }
+
+    public void offer(NativeImage image) {
+        Session current = session;
+        if (current == null) {
+            return;
+        }
+        // A bounded number of copies may wait for the encoder; beyond that frames are skipped rather than buffered.
+        if (!pendingFrames.tryAcquire()) {
+            droppedFrames.incrementAndGet();
+            return;
+        }
+
+        NativeImage copy = pool.acquire(image.getWidth(), image.getHeight());
+        MemoryUtil.memCopy(NativeImagePixels.address(image), NativeImagePixels.address(copy), NativeImagePixels.byteSize(image));
+        executor.execute(() -> {
+            try {
+                writeFrame(current, copy);
+            } finally {
+                pool.release(copy);
+                pendingFrames.release();
+            }
+        });
+    }
+
+    public void repeatLast() {
+        Session current = session;
+        if (current == null) {
+            return;
+        }
+        // An unchanged capture still occupies its slot in the timeline, so the previous JPEG is written again as-is.
+        executor.execute(() -> {
+            if (writerSession == current && writer != null && lastJpeg != null) {
+                append(current, lastJpeg, writer.width(), writer.height());
+            }
+        });
+    }
+
+    public String describe() {
+        Session current = session;
+        if (current == null) {
+            return lastFile != null ? "off, last saved " + lastFile : "off";
+        }
+        return String.format(
+            Locale.ROOT,
+            "on at %d fps, %d frames written, %d skipped, into %s",
+            current.framesPerSecond,
+            current.writtenFrames.get(),
+            droppedFrames.get(),
+            current.directory.resolve(current.baseName + "_*.avi")
+        );
+    }
+
+    private void writeFrame(Session current, NativeImage image) {
+        if (current.failed) {
+            return;
+        }
+        byte[] jpeg;
+        try {
+            jpeg = JpegEncoder.encode(NativeImagePixels.view(image), image.getWidth(), image.getHeight(), current.quality);
+        } catch (IOException | RuntimeException exception) {
+            fail(current, exception);
+            return;
+        }
+        append(current, jpeg, image.getWidth(), image.getHeight());
+    }
+
+    private void append(Session current, byte[] jpeg, int width, int height) {
+        if (current.failed) {
+            return;
+        }
+        try {
+            boolean sizeChanged = writer != null && (writer.width() != width || writer.height() != height);
+            if (writer != null && (writerSession != current || sizeChanged || writer.byteSize() + jpeg.length > MAX_PART_BYTES)) {
+                finishWriter();
+            }
+            if (writer == null) {
+                Files.createDirectories(current.directory);
+                part = writerSession == current ? part + 1 : 1;
+                Path path = current.directory.resolve(String.format(Locale.ROOT, "%s_%03d.avi", current.baseName, part));
+                writer = new AviMjpegWriter(path, width, height, current.framesPerSecond);
+                writerSession = current;
+            }
+            writer.writeFrame(jpeg);
+            lastJpeg = jpeg;
+            current.writtenFrames.incrementAndGet();
+        } catch (IOException | RuntimeException exception) {
+            fail(current, exception);
+        }
+    }
+
+    private void fail(Session current, Exception exception) {
+        current.failed = true;
+        current.notifier.accept("Recording failed: " + exception.getMessage());
+        finishWriter();
+    }
+
+    private void finishWriter() {
+        if (writer == null) {
+            return;
+        }
+        AviMjpegWriter finished = writer;
+        Session finishedSession = writerSession;
+        writer = null;
+        lastJpeg = null;
+        try {
+            finished.finish();
+            lastFile = finished.path().getFileName().toString();
+            finishedSession.notifier.accept(String.format(
+                Locale.ROOT,
+                "Recording saved: %s (%d frames).",
+                lastFile,
+                finished.frameCount()
+            ));
+        } catch (IOException exception) {
+            finishedSession.notifier.accept("Recording could not be finalized: " + exception.getMessage());
+        }
+    }
+
+    private static final class Session {
+        private final Path directory;
+        private final String baseName;
+        private final int framesPerSecond;
+        private final int quality;
+        private final Consumer<String> notifier;
+        private final AtomicLong writtenFrames = new AtomicLong();
+        private volatile boolean failed;
+
+        private Session(Path directory, String baseName, int framesPerSecond, int quality, Consumer<String> notifier) {
+            this.directory = directory;
+            this.baseName = baseName;
+            this.framesPerSecond = framesPerSecond;
+            this.quality = quality;
+            this.notifier = notifier;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.panshot.spectatorcam;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+final class WriteDeadline {
+    private static final long TIMEOUT_MILLIS = 10_000L;
+    private static final int CHUNK_BYTES = 256 * 1024;
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "panshot-web-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private WriteDeadline() {
+    }
+
+    static void write(OutputStream out, byte[] bytes) throws IOException {
+        // Chunked so the deadline bounds each stall rather than the whole transfer of a large frame.
+        for (int position = 0; position < bytes.length; position += CHUNK_BYTES) {
+            int offset = position;
+            int length = Math.min(CHUNK_BYTES, bytes.length - position);
+            guard(() -> out.write(bytes, offset, length));
+        }
+    }
+
+    static void flush(OutputStream out) throws IOException {
+        guard(out::flush);
+    }
+
+    private static void guard(Write write) throws IOException {
+        // The exchange channels are interruptible, so interrupting a stuck writer closes that one socket.
+        Deadline deadline = new Deadline(Thread.currentThread());
+        ScheduledFuture<?> timeout = WATCHDOG.schedule(deadline::expire, TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        try {
+            write.run();
+        } finally {
+            timeout.cancel(false);
+            if (deadline.finish()) {
+                Thread.interrupted();
+            }
+        }
+    }
+
+    private interface Write {
+        void run() throws IOException;
+    }
+
+    private static final class Deadline {
+        private final Thread writer;
+        private boolean finished;
+        private boolean expired;
+
+        private Deadline(Thread writer) {
+            this.writer = writer;
+        }
+
+        private synchronized void expire() {
+            if (!finished) {
+                expired = true;
+                writer.interrupt();
+            }
+        }
+
+        private synchronized boolean finish() {
+            finished = true;
+            return expired;
+        }
+    }
+}
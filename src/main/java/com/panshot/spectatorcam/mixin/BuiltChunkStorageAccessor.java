@@ -0,0 +1,21 @@
+package com.panshot.spectatorcam.mixin;
+
+import net.minecraft.client.render.BuiltChunkStorage;
+import net.minecraft.client.render.chunk.ChunkBuilder;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+import org.spongepowered.asm.mixin.gen.Invoker;
+
+@Mixin(BuiltChunkStorage.class)
+public interface BuiltChunkStorageAccessor {
+    @Accessor("world")
+    World spectatorcam$getWorld();
+
+    @Accessor("sizeY")
+    int spectatorcam$getSizeY();
+
+    @Invoker("getRenderedChunk")
+    ChunkBuilder.BuiltChunk spectatorcam$getRenderedChunk(BlockPos pos);
+}
@@ -0,0 +1,11 @@
+package com.panshot.spectatorcam.mixin;
+
+import net.minecraft.client.texture.NativeImage;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+@Mixin(NativeImage.class)
+public interface NativeImageAccessor {
+    @Accessor("pointer")
+    long spectatorcam$getPointer();
+}
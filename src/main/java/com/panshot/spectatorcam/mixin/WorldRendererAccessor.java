@@ -0,0 +1,60 @@
+package com.panshot.spectatorcam.mixin;
+
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import net.minecraft.client.render.BuiltChunkStorage;
+import net.minecraft.client.render.ChunkRenderingDataPreparer;
+import net.minecraft.client.render.WorldRenderer;
+import net.minecraft.client.render.chunk.ChunkBuilder;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Mutable;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+@Mixin(WorldRenderer.class)
+public interface WorldRendererAccessor {
+    @Accessor("chunks")
+    BuiltChunkStorage spectatorcam$getChunks();
+
+    @Accessor("chunkRenderingDataPreparer")
+    ChunkRenderingDataPreparer spectatorcam$getChunkRenderingDataPreparer();
+
+    @Mutable
+    @Accessor("chunkRenderingDataPreparer")
+    void spectatorcam$setChunkRenderingDataPreparer(ChunkRenderingDataPreparer preparer);
+
+    @Accessor("builtChunks")
+    ObjectArrayList<ChunkBuilder.BuiltChunk> spectatorcam$getBuiltChunks();
+
+    @Mutable
+    @Accessor("builtChunks")
+    void spectatorcam$setBuiltChunks(ObjectArrayList<ChunkBuilder.BuiltChunk> builtChunks);
+
+    @Accessor("lastCameraX")
+    double spectatorcam$getLastCameraX();
+
+    @Accessor("lastCameraX")
+    void spectatorcam$setLastCameraX(double x);
+
+    @Accessor("lastCameraY")
+    double spectatorcam$getLastCameraY();
+
+    @Accessor("lastCameraY")
+    void spectatorcam$setLastCameraY(double y);
+
+    @Accessor("lastCameraZ")
+    double spectatorcam$getLastCameraZ();
+
+    @Accessor("lastCameraZ")
+    void spectatorcam$setLastCameraZ(double z);
+
+    @Accessor("lastCameraPitch")
+    double spectatorcam$getLastCameraPitch();
+
+    @Accessor("lastCameraPitch")
+    void spectatorcam$setLastCameraPitch(double pitch);
+
+    @Accessor("lastCameraYaw")
+    double spectatorcam$getLastCameraYaw();
+
+    @Accessor("lastCameraYaw")
+    void spectatorcam$setLastCameraYaw(double yaw);
+}
@@ -0,0 +1,17 @@
+package com.panshot.spectatorcam.mixin;
+
+import com.panshot.spectatorcam.CaptureViewState;
+import net.minecraft.client.render.WorldRenderer;
+import net.minecraft.client.render.chunk.ChunkBuilder;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(WorldRenderer.class)
+public abstract class WorldRendererMixin {
+    @Inject(method = "addBuiltChunk", at = @At("HEAD"))
+    private void spectatorcam$forwardBuiltChunk(ChunkBuilder.BuiltChunk chunk, CallbackInfo info) {
+        CaptureViewState.onBuiltChunk(chunk);
+    }
+}
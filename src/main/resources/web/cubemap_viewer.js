@@ -0,0 +1,321 @@
+(function () {
+  "use strict";
+
+  // Atlas cell of each captured face: 0 forward, 1 right, 2 back, 3 left, 4 up, 5 down.
+  const DEFAULT_FACE_GRID = [
+    { col: 1, row: 1 },
+    { col: 1, row: 0 },
+    { col: 2, row: 1 },
+    { col: 0, row: 0 },
+    { col: 2, row: 0 },
+    { col: 0, row: 1 }
+  ];
+
+  const VERTEX_SHADER = [
+    "attribute vec2 position;",
+    "varying vec2 screen;",
+    "void main() {",
+    "  screen = position;",
+    "  gl_Position = vec4(position, 0.0, 1.0);",
+    "}"
+  ].join("\n");
+
+  const FRAGMENT_SHADER = [
+    "precision highp float;",
+    "uniform sampler2D atlas;",
+    "uniform vec2 cells[6];",
+    "uniform vec2 cellSize;",
+    "uniform float faceInset;",
+    "uniform mat3 rotation;",
+    "uniform vec2 scale;",
+    "varying vec2 screen;",
+    "void main() {",
+    "  vec3 d = rotation * vec3(screen * scale, 1.0);",
+    "  vec3 a = abs(d);",
+    "  vec2 cell;",
+    "  vec2 uv;",
+    "  if (a.z >= a.x && a.z >= a.y) {",
+    "    if (d.z > 0.0) { cell = cells[0]; uv = vec2(d.x, -d.y) / a.z; }",
+    "    else { cell = cells[2]; uv = vec2(-d.x, -d.y) / a.z; }",
+    "  } else if (a.x >= a.y) {",
+    "    if (d.x > 0.0) { cell = cells[1]; uv = vec2(-d.z, -d.y) / a.x; }",
+    "    else { cell = cells[3]; uv = vec2(d.z, -d.y) / a.x; }",
+    "  } else {",
+    "    if (d.y > 0.0) { cell = cells[4]; uv = vec2(d.x, d.z) / a.y; }",
+    "    else { cell = cells[5]; uv = vec2(d.x, -d.z) / a.y; }",
+    "  }",
+    "  uv = clamp(uv * 0.5 + 0.5, faceInset, 1.0 - faceInset);",
+    "  gl_FragColor = texture2D(atlas, (cell + uv) * cellSize);",
+    "}"
+  ].join("\n");
+
+  function clamp(value, min, max) {
+    return Math.max(min, Math.min(max, value));
+  }
+
+  function normalizeYaw(yaw) {
+    const wrapped = ((yaw + 180) % 360 + 360) % 360 - 180;
+    return wrapped === -180 ? 180 : wrapped;
+  }
+
+  function compileShader(gl, type, source) {
+    const shader = gl.createShader(type);
+    gl.shaderSource(shader, source);
+    gl.compileShader(shader);
+    if (!gl.getShaderParameter(shader, gl.COMPILE_STATUS)) {
+      throw new Error("Cubemap shader failed: " + gl.getShaderInfoLog(shader));
+    }
+    return shader;
+  }
+
+  function loadImage(source) {
+    if (typeof source !== "string") {
+      return Promise.resolve(source);
+    }
+    return new Promise((resolve, reject) => {
+      const image = new Image();
+      image.onload = () => resolve(image);
+      image.onerror = () => reject(new Error("Failed to load cubemap image"));
+      image.src = source;
+    });
+  }
+
+  function sourceSize(source) {
+    return {
+      width: source.naturalWidth || source.videoWidth || source.width,
+      height: source.naturalHeight || source.videoHeight || source.height
+    };
+  }
+
+  class PanoViewer {
+    constructor(container, options) {
+      const settings = options || {};
+      this.container = container;
+      this.fovRange = settings.fovRange || [1, 150];
+      this.pitchRange = [
+        Math.max(-90, (settings.pitchRange || [-90, 90])[0]),
+        Math.min(90, (settings.pitchRange || [-90, 90])[1])
+      ];
+      this.faceGrid = settings.faceGrid || DEFAULT_FACE_GRID;
+      this.yaw = 0;
+      this.pitch = 0;
+      this.fov = 90;
+      this.handlers = {};
+      this.imageToken = 0;
+      this.faceSize = 1;
+      this.renderQueued = false;
+      this.dragging = false;
+      this.lastX = 0;
+      this.lastY = 0;
+
+      this.canvas = document.createElement("canvas");
+      this.canvas.style.width = "100%";
+      this.canvas.style.height = "100%";
+      this.canvas.style.display = "block";
+      this.canvas.style.touchAction = "none";
+      container.appendChild(this.canvas);
+
+      const gl = this.canvas.getContext("webgl", { alpha: false, antialias: false, depth: false });
+      if (!gl) {
+        throw new Error("WebGL is not available");
+      }
+      this.gl = gl;
+      this.maxTextureSize = gl.getParameter(gl.MAX_TEXTURE_SIZE);
+      this.initProgram();
+      this.installInput();
+      if (typeof ResizeObserver !== "undefined") {
+        new ResizeObserver(() => this.requestRender()).observe(container);
+      } else {
+        window.addEventListener("resize", () => this.requestRender());
+      }
+      if (settings.image) {
+        this.setImage(settings.image);
+      }
+    }
+
+    initProgram() {
+      const gl = this.gl;
+      const program = gl.createProgram();
+      gl.attachShader(program, compileShader(gl, gl.VERTEX_SHADER, VERTEX_SHADER));
+      gl.attachShader(program, compileShader(gl, gl.FRAGMENT_SHADER, FRAGMENT_SHADER));
+      gl.linkProgram(program);
+      if (!gl.getProgramParameter(program, gl.LINK_STATUS)) {
+        throw new Error("Cubemap program failed: " + gl.getProgramInfoLog(program));
+      }
+      gl.useProgram(program);
+      this.program = program;
+
+      const quad = gl.createBuffer();
+      gl.bindBuffer(gl.ARRAY_BUFFER, quad);
+      gl.bufferData(gl.ARRAY_BUFFER, new Float32Array([-1, -1, 1, -1, -1, 1, 1, 1]), gl.STATIC_DRAW);
+      const position = gl.getAttribLocation(program, "position");
+      gl.enableVertexAttribArray(position);
+      gl.vertexAttribPointer(position, 2, gl.FLOAT, false, 0, 0);
+
+      const cells = [];
+      for (const cell of this.faceGrid) {
+        cells.push(cell.col, cell.row);
+      }
+      gl.uniform2fv(gl.getUniformLocation(program, "cells"), new Float32Array(cells));
+      gl.uniform2f(gl.getUniformLocation(program, "cellSize"), 1 / 3, 1 / 2);
+      gl.uniform1i(gl.getUniformLocation(program, "atlas"), 0);
+      this.faceInsetLocation = gl.getUniformLocation(program, "faceInset");
+      this.rotationLocation = gl.getUniformLocation(program, "rotation");
+      this.scaleLocation = gl.getUniformLocation(program, "scale");
+
+      this.texture = gl.createTexture();
+      gl.bindTexture(gl.TEXTURE_2D, this.texture);
+      // Nearest sampling keeps block edges crisp, and clamping stops faces bleeding into their neighbours.
+      gl.texParameteri(gl.TEXTURE_2D, gl.TEXTURE_MIN_FILTER, gl.NEAREST);
+      gl.texParameteri(gl.TEXTURE_2D, gl.TEXTURE_MAG_FILTER, gl.NEAREST);
+      gl.texParameteri(gl.TEXTURE_2D, gl.TEXTURE_WRAP_S, gl.CLAMP_TO_EDGE);
+      gl.texParameteri(gl.TEXTURE_2D, gl.TEXTURE_WRAP_T, gl.CLAMP_TO_EDGE);
+    }
+
+    installInput() {
+      this.canvas.addEventListener("pointerdown", event => {
+        if (event.button !== 0) {
+          return;
+        }
+        this.dragging = true;
+        this.lastX = event.clientX;
+        this.lastY = event.clientY;
+        this.canvas.setPointerCapture(event.pointerId);
+      });
+      this.canvas.addEventListener("pointermove", event => {
+        if (!this.dragging) {
+          return;
+        }
+        const degreesPerPixel = this.fov / Math.max(1, this.canvas.clientHeight);
+        const dx = event.clientX - this.lastX;
+        const dy = event.clientY - this.lastY;
+        this.lastX = event.clientX;
+        this.lastY = event.clientY;
+        this.setView(this.yaw - dx * degreesPerPixel, this.pitch + dy * degreesPerPixel, this.fov);
+      });
+      const stop = () => {
+        this.dragging = false;
+      };
+      this.canvas.addEventListener("pointerup", stop);
+      this.canvas.addEventListener("pointercancel", stop);
+    }
+
+    on(name, handler) {
+      (this.handlers[name] || (this.handlers[name] = [])).push(handler);
+      return this;
+    }
+
+    trigger(name, event) {
+      for (const handler of this.handlers[name] || []) {
+        handler(event);
+      }
+    }
+
+    setImage(source) {
+      const token = ++this.imageToken;
+      return loadImage(source).then(image => {
+        if (token !== this.imageToken) {
+          return;
+        }
+        this.upload(image);
+        this.requestRender();
+        this.trigger("ready", { target: this });
+      }, error => {
+        if (token === this.imageToken) {
+          this.trigger("error", { target: this, error: error });
+        }
+      });
+    }
+
+    upload(image) {
+      const gl = this.gl;
+      let source = image;
+      let size = sourceSize(image);
+      if (size.width > this.maxTextureSize || size.height > this.maxTextureSize) {
+        // Larger atlases than the GPU accepts are shown downscaled rather than not at all.
+        const ratio = Math.min(this.maxTextureSize / size.width, this.maxTextureSize / size.height);
+        const scaled = document.createElement("canvas");
+        scaled.width = Math.floor(size.width * ratio / 3) * 3;
+        scaled.height = Math.floor(size.height * ratio / 2) * 2;
+        scaled.getContext("2d").drawImage(image, 0, 0, scaled.width, scaled.height);
+        source = scaled;
+        size = { width: scaled.width, height: scaled.height };
+      }
+      this.faceSize = Math.max(1, size.width / 3);
+      gl.bindTexture(gl.TEXTURE_2D, this.texture);
+      gl.pixelStorei(gl.UNPACK_FLIP_Y_WEBGL, false);
+      gl.texImage2D(gl.TEXTURE_2D, 0, gl.RGBA, gl.RGBA, gl.UNSIGNED_BYTE, source);
+    }
+
+    setView(yaw, pitch, fov) {
+      this.yaw = normalizeYaw(yaw);
+      this.pitch = clamp(pitch, this.pitchRange[0], this.pitchRange[1]);
+      this.fov = clamp(fov, this.fovRange[0], this.fovRange[1]);
+      this.requestRender();
+      this.trigger("viewChange", { yaw: this.yaw, pitch: this.pitch, fov: this.fov });
+    }
+
+    lookAt(view) {
+      this.setView(
+        view.yaw !== undefined ? view.yaw : this.yaw,
+        view.pitch !== undefined ? view.pitch : this.pitch,
+        view.fov !== undefined ? view.fov : this.fov
+      );
+    }
+
+    getYaw() {
+      return this.yaw;
+    }
+
+    getPitch() {
+      return this.pitch;
+    }
+
+    getFov() {
+      return this.fov;
+    }
+
+    requestRender() {
+      if (this.renderQueued) {
+        return;
+      }
+      this.renderQueued = true;
+      window.requestAnimationFrame(() => {
+        this.renderQueued = false;
+        this.render();
+      });
+    }
+
+    render() {
+      const gl = this.gl;
+      const dpr = window.devicePixelRatio || 1;
+      const width = Math.max(1, Math.floor(this.canvas.clientWidth * dpr));
+      const height = Math.max(1, Math.floor(this.canvas.clientHeight * dpr));
+      if (this.canvas.width !== width || this.canvas.height !== height) {
+        this.canvas.width = width;
+        this.canvas.height = height;
+      }
+      gl.viewport(0, 0, width, height);
+
+      const yaw = this.yaw * Math.PI / 180;
+      const pitch = this.pitch * Math.PI / 180;
+      const cy = Math.cos(yaw);
+      const sy = Math.sin(yaw);
+      const cp = Math.cos(pitch);
+      const sp = Math.sin(pitch);
+      // Column-major yaw * pitch: positive yaw turns right, positive pitch looks up.
+      gl.uniformMatrix3fv(this.rotationLocation, false, new Float32Array([
+        cy, 0, -sy,
+        -sy * sp, cp, -cy * sp,
+        sy * cp, sp, cy * cp
+      ]));
+      const tangent = Math.tan(this.fov * Math.PI / 360);
+      gl.uniform2f(this.scaleLocation, tangent * width / height, tangent);
+      gl.uniform1f(this.faceInsetLocation, 0.5 / this.faceSize);
+      gl.drawArrays(gl.TRIANGLE_STRIP, 0, 4);
+    }
+  }
+
+  PanoViewer.PROJECTION_TYPE = { CUBEMAP: "cubemap" };
+  window.PanshotCubemap = { PanoViewer: PanoViewer };
+})();